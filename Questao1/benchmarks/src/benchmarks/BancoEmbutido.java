@@ -0,0 +1,128 @@
+package benchmarks;
+
+import infra.pool.PoolConexoes;
+import org.h2.jdbcx.JdbcDataSource;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Banco H2 em memória com o esquema usado pelos repositórios do Questao1
+final class BancoEmbutido implements AutoCloseable {
+    private static final String[] ESQUEMA = {
+            "CREATE TABLE livros (id BIGINT AUTO_INCREMENT PRIMARY KEY, titulo VARCHAR(200),"
+                    + " autor VARCHAR(200), isbn VARCHAR(20), disponivel BOOLEAN)",
+            "CREATE INDEX idx_livros_disponivel ON livros (disponivel)",
+            "CREATE UNIQUE INDEX idx_livros_isbn ON livros (isbn)", // buscarPorIsbn (isbn=?) e unicidade do ISBN canônico
+            "CREATE TABLE pedidos (id BIGINT AUTO_INCREMENT PRIMARY KEY, cliente_id VARCHAR(64), status VARCHAR(20),"
+                    + " valor_total DECIMAL(19, 2), data_criacao TIMESTAMP, versao BIGINT DEFAULT 0)",
+            "CREATE INDEX idx_pedidos_cliente ON pedidos (cliente_id, id)",
+            "CREATE TABLE itens_pedido (id BIGINT AUTO_INCREMENT PRIMARY KEY, pedido_id BIGINT, produto_id VARCHAR(64),"
+                    + " quantidade INT, preco_unitario DECIMAL(19, 2), subtotal DECIMAL(19, 2))",
+            "CREATE INDEX idx_itens_pedido ON itens_pedido (pedido_id)",
+            "CREATE TABLE sequencias (nome VARCHAR(64) PRIMARY KEY, proximo_hi BIGINT)"
+    };
+
+    private static final String[] AUTORES = {
+            "Machado de Assis", "Clarice Lispector", "Jorge Amado", "Graciliano Ramos", "Cecília Meireles",
+            "Guimarães Rosa", "Rachel de Queiroz", "Carlos Drummond", "Lygia Fagundes", "Erico Verissimo"
+    };
+
+    private final PoolConexoes pool;
+
+    // modo "mem" (só RAM) ou "file" (arquivo em java.io.tmpdir), como em jdbc:h2:<modo>:
+    BancoEmbutido(String modo) throws SQLException {
+        String nome = "bench" + System.nanoTime();
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("file".equals(modo)
+                ? "jdbc:h2:file:" + System.getProperty("java.io.tmpdir") + "/" + nome
+                : "jdbc:h2:mem:" + nome + ";DB_CLOSE_DELAY=-1");
+
+        this.pool = new PoolConexoes(h2::getConnection, 4, 16, Duration.ofSeconds(5), Duration.ofMinutes(5));
+        try (Connection c = pool.getConnection(); Statement stmt = c.createStatement()) {
+            for (String ddl : ESQUEMA) {
+                stmt.execute(ddl);
+            }
+        }
+    }
+
+    PoolConexoes getDataSource() { return pool; }
+
+    // Metade dos livros disponíveis; autores se repetem para a busca por autor ter resultados
+    void popularLivros(int quantidade) throws SQLException {
+        String sql = "INSERT INTO livros (titulo, autor, isbn, disponivel) VALUES (?, ?, ?, ?)";
+        try (Connection c = pool.getConnection(); PreparedStatement stmt = c.prepareStatement(sql)) {
+            c.setAutoCommit(false);
+            for (int i = 0; i < quantidade; i++) {
+                stmt.setString(1, "Livro " + i);
+                stmt.setString(2, AUTORES[i % AUTORES.length]);
+                stmt.setString(3, String.format("978%010d", i));
+                stmt.setBoolean(4, i % 2 == 0);
+                stmt.addBatch();
+                if (i % 1000 == 999) {
+                    stmt.executeBatch();
+                }
+            }
+            stmt.executeBatch();
+            c.commit();
+        }
+    }
+
+    // Pedidos distribuídos igualmente entre os clientes, cada um com itensPorPedido itens
+    void popularPedidos(int clientes, int pedidosPorCliente, int itensPorPedido) throws SQLException {
+        String sqlPedido = "INSERT INTO pedidos (id, cliente_id, status, valor_total, data_criacao, versao) VALUES (?, ?, 'RASCUNHO', ?, ?, 0)";
+        String sqlItem = "INSERT INTO itens_pedido (pedido_id, produto_id, quantidade, preco_unitario, subtotal) VALUES (?, ?, 1, 10.00, 10.00)";
+        try (Connection c = pool.getConnection();
+             PreparedStatement pedido = c.prepareStatement(sqlPedido);
+             PreparedStatement item = c.prepareStatement(sqlItem)) {
+            c.setAutoCommit(false);
+            Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+            long id = 0;
+            for (int cliente = 0; cliente < clientes; cliente++) {
+                for (int p = 0; p < pedidosPorCliente; p++) {
+                    id++;
+                    pedido.setLong(1, id);
+                    pedido.setString(2, cliente(cliente));
+                    pedido.setBigDecimal(3, BigDecimal.TEN.multiply(BigDecimal.valueOf(itensPorPedido)));
+                    pedido.setTimestamp(4, agora);
+                    pedido.addBatch();
+                    for (int i = 0; i < itensPorPedido; i++) {
+                        item.setLong(1, id);
+                        item.setString(2, "produto-" + i);
+                        item.addBatch();
+                    }
+                }
+                pedido.executeBatch();
+                item.executeBatch();
+            }
+            c.commit();
+            try (Statement stmt = c.createStatement()) {
+                // Inserções sem id explícito continuam depois dos pedidos pré-carregados
+                stmt.execute("ALTER TABLE pedidos ALTER COLUMN id RESTART WITH " + (id + 1));
+            }
+            c.commit();
+        }
+    }
+
+    static String cliente(int indice) {
+        return "cliente-" + indice;
+    }
+
+    static String autor(int indice) {
+        return AUTORES[indice % AUTORES.length];
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try (Connection c = pool.getConnection(); Statement stmt = c.createStatement()) {
+            stmt.execute("DROP ALL OBJECTS DELETE FILES");
+        } finally {
+            pool.close();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Roda a suíte com o profiler de GC (equivalente a -prof gc): throughput, percentis
+ * de latência (modo SampleTime) e taxa de alocação por operação.
+ * Argumento opcional: regex dos benchmarks a incluir (padrão: todos). Resultados em
+ * resultados-benchmarks.json.
+ */
+public class ExecutarBenchmarks {
+    public static void main(String[] args) throws RunnerException {
+        Options opcoes = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : "benchmarks\\..*Benchmark")
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("resultados-benchmarks.json")
+                .build();
+        new Runner(opcoes).run();
+    }
+}
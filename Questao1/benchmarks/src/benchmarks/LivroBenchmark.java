@@ -0,0 +1,209 @@
+package benchmarks;
+
+import domain.DataMapper.Livro;
+import infra.impl.IndexedLivroRepository;
+import infra.impl.JdbcLivroMapper;
+import infra.impl.JdbcLivroRepository;
+import infra.impl.LivroDAOImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Os três padrões de persistência de livros (Repository, Data Mapper e DAO) sobre a
+ * mesma tabela. Cada padrão só é medido nas operações que implementa.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LivroBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int livros;
+
+    @Param({"mem"})
+    public String modo;
+
+    private BancoEmbutido banco;
+    private JdbcLivroRepository repository;
+    private IndexedLivroRepository indexado;
+    private JdbcLivroMapper mapper;
+    private LivroDAOImpl dao;
+    private final AtomicLong isbnsNovos = new AtomicLong(); // isbn tem índice único
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        banco = new BancoEmbutido(modo);
+        banco.popularLivros(livros);
+        repository = new JdbcLivroRepository(banco.getDataSource());
+        indexado = new IndexedLivroRepository(repository);
+        indexado.aquecer();
+        mapper = new JdbcLivroMapper(banco.getDataSource());
+        dao = new LivroDAOImpl(banco.getDataSource());
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws Exception {
+        banco.close();
+    }
+
+    // Repository
+
+    @Benchmark
+    public Object repositorioBuscarPorId() {
+        return repository.buscarPorId(idAleatorio());
+    }
+
+    @Benchmark
+    public Livro repositorioAtualizar() {
+        Livro livro = livroExistente();
+        repository.salvar(livro);
+        return livro;
+    }
+
+    @Benchmark
+    public List<Livro> repositorioBuscarDisponiveis() {
+        return repository.buscarDisponiveis();
+    }
+
+    @Benchmark
+    public long repositorioContarDisponiveis() {
+        return repository.contarDisponiveis();
+    }
+
+    @Benchmark
+    public List<Livro> repositorioBuscarPorAutor() {
+        return repository.buscarPorAutor(BancoEmbutido.autor(ThreadLocalRandom.current().nextInt(10)));
+    }
+
+    @Benchmark
+    public List<Livro> repositorioBuscarTodos() {
+        return repository.buscarTodos();
+    }
+
+    // ISBN inexistente: o caso comum ao cadastrar um livro novo
+    @Benchmark
+    public Object repositorioBuscarPorIsbnAusente() {
+        return repository.buscarPorIsbn(String.format("979%010d", idAleatorio()));
+    }
+
+    @Benchmark
+    public Object indexadoBuscarPorIsbnAusente() {
+        return indexado.buscarPorIsbn(String.format("979%010d", idAleatorio()));
+    }
+
+    @Benchmark
+    public Object indexadoBuscarPorIsbn() {
+        return indexado.buscarPorIsbn(String.format("978%010d", idAleatorio() - 1));
+    }
+
+    @Benchmark
+    public List<Livro> indexadoBuscarPorAutor() {
+        return indexado.buscarPorAutor(BancoEmbutido.autor(ThreadLocalRandom.current().nextInt(10)));
+    }
+
+    @Benchmark
+    public long indexadoContarDisponiveis() {
+        return indexado.contarDisponiveis();
+    }
+
+    @Benchmark
+    public List<Livro> indexadoBuscarDisponiveisPorAutor() {
+        return indexado.buscarDisponiveisPorAutor(BancoEmbutido.autor(ThreadLocalRandom.current().nextInt(10)));
+    }
+
+    @Benchmark
+    public List<Livro> indexadoBuscarPorTitulo() {
+        return indexado.buscarPorTitulo("Livro " + ThreadLocalRandom.current().nextInt(livros));
+    }
+
+    // Data Mapper
+
+    @Benchmark
+    public Object mapperFindById() {
+        return mapper.findById(idAleatorio());
+    }
+
+    @Benchmark
+    public Livro mapperUpdate() {
+        Livro livro = livroExistente();
+        mapper.update(livro);
+        return livro;
+    }
+
+    @Benchmark
+    public List<Livro> mapperFindAll() {
+        return mapper.findAll();
+    }
+
+    // Mesma varredura sem materializar a lista (memória constante)
+    @Benchmark
+    public long mapperStreamAll() {
+        try (Stream<Livro> todos = mapper.streamAll()) {
+            return todos.filter(Livro::isDisponivel).count();
+        }
+    }
+
+    // DAO
+
+    @Benchmark
+    public domain.DAO.Livro daoSalvar() throws SQLException {
+        domain.DAO.Livro livro = new domain.DAO.Livro("Novo", "Autor",
+                String.format("977%010d", isbnsNovos.incrementAndGet()));
+        dao.salvar(livro);
+        return livro;
+    }
+
+    @Benchmark
+    public Object daoBuscarPorId() {
+        return dao.buscarPorId(idAleatorio());
+    }
+
+    @Benchmark
+    public List<domain.DAO.Livro> daoBuscarPorAutor() {
+        return dao.buscarPorAutor(BancoEmbutido.autor(ThreadLocalRandom.current().nextInt(10)));
+    }
+
+    @Benchmark
+    public List<domain.DAO.Livro> daoBuscarTodos() throws SQLException {
+        return dao.buscarTodos();
+    }
+
+    @Benchmark
+    public long daoParaCada() throws SQLException {
+        long[] disponiveis = new long[1];
+        dao.paraCada(livro -> {
+            if (livro.isDisponivel()) disponiveis[0]++;
+        });
+        return disponiveis[0];
+    }
+
+    private long idAleatorio() {
+        return 1 + ThreadLocalRandom.current().nextLong(livros);
+    }
+
+    private Livro livroExistente() {
+        long id = idAleatorio();
+        return new Livro(id, "Livro " + id, BancoEmbutido.autor((int) (id - 1)),
+                String.format("978%010d", id - 1), id % 2 == 1);
+    }
+}
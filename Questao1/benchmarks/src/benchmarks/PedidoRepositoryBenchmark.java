@@ -0,0 +1,100 @@
+package benchmarks;
+
+import Item3.domain.Pedido;
+import Item3.domain.repository.ResumoPedido;
+import Item3.infra.repository.JdbcPedidoRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JdbcPedidoRepository contra H2: gravação, busca por id e as três formas de
+ * carregar os pedidos de um cliente (agregado completo, stream e só cabeçalhos).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PedidoRepositoryBenchmark {
+    private static final int CLIENTES = 100;
+
+    @Param({"10", "100"})
+    public int pedidosPorCliente;
+
+    @Param({"1", "20"})
+    public int itensPorPedido;
+
+    @Param({"mem"})
+    public String modo;
+
+    private BancoEmbutido banco;
+    private JdbcPedidoRepository repository;
+    private long totalPedidos;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        banco = new BancoEmbutido(modo);
+        banco.popularPedidos(CLIENTES, pedidosPorCliente, itensPorPedido);
+        repository = new JdbcPedidoRepository(banco.getDataSource());
+        totalPedidos = (long) CLIENTES * pedidosPorCliente;
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws Exception {
+        banco.close();
+    }
+
+    @Benchmark
+    public Long salvarNovo() {
+        Pedido pedido = Pedido.criarNovo(BancoEmbutido.cliente(CLIENTES));
+        for (int i = 0; i < itensPorPedido; i++) {
+            pedido.adicionarItem("produto-" + i, 1, BigDecimal.TEN);
+        }
+        repository.salvar(pedido);
+        return pedido.getId();
+    }
+
+    @Benchmark
+    public Object buscarPorId() {
+        return repository.buscarPorId(1 + ThreadLocalRandom.current().nextLong(totalPedidos));
+    }
+
+    @Benchmark
+    public List<Pedido> buscarPorCliente() {
+        return repository.buscarPorCliente(clienteAleatorio());
+    }
+
+    @Benchmark
+    public void streamPorCliente(Blackhole bh) {
+        try (var pedidos = repository.streamPorCliente(clienteAleatorio())) {
+            pedidos.forEach(bh::consume);
+        }
+    }
+
+    @Benchmark
+    public List<ResumoPedido> resumosPorCliente() {
+        return repository.resumosPorCliente(clienteAleatorio());
+    }
+
+    private static String clienteAleatorio() {
+        return BancoEmbutido.cliente(ThreadLocalRandom.current().nextInt(CLIENTES));
+    }
+}
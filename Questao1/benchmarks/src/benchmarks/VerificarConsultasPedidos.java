@@ -0,0 +1,122 @@
+package benchmarks;
+
+import Item3.domain.Pedido;
+import Item3.infra.repository.JdbcPedidoRepository;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checagem contra H2 (sem JMH) de que buscarPorCliente carrega os pedidos de um cliente
+ * com uma consulta de cabeçalhos mais um IN de itens por bloco de 512 pedidos, e não com
+ * N+1. As execuções são contadas por um proxy em volta do DataSource. Sai com código 1 se
+ * alguma checagem falhar.
+ */
+public class VerificarConsultasPedidos {
+    private static final int CLIENTES = 3;
+    private static final int PEDIDOS_POR_CLIENTE = 50;
+    private static final int ITENS_POR_PEDIDO = 4;
+    // Mesmo bloco do IN em JdbcPedidoRepository; 1100 pedidos dão 3 blocos
+    private static final int TAMANHO_BLOCO_IN = 512;
+    private static final int PEDIDOS_CLIENTE_GRANDE = 1100;
+
+    private static int falhas;
+
+    public static void main(String[] args) throws Exception {
+        try (BancoEmbutido banco = new BancoEmbutido("mem")) {
+            banco.popularPedidos(CLIENTES, PEDIDOS_POR_CLIENTE, ITENS_POR_PEDIDO);
+            AtomicInteger consultas = new AtomicInteger();
+            JdbcPedidoRepository repository = new JdbcPedidoRepository(contando(banco.getDataSource(), consultas));
+
+            List<Pedido> pedidos = repository.buscarPorCliente(BancoEmbutido.cliente(1));
+            verificar("buscarPorCliente", pedidos, PEDIDOS_POR_CLIENTE, consultas.getAndSet(0));
+
+            List<Pedido> pagina = repository.buscarPorCliente(BancoEmbutido.cliente(1), pedidos.get(9).getId(), 20);
+            verificar("buscarPorCliente paginado", pagina, 20, consultas.getAndSet(0));
+        }
+
+        try (BancoEmbutido banco = new BancoEmbutido("mem")) {
+            banco.popularPedidos(1, PEDIDOS_CLIENTE_GRANDE, ITENS_POR_PEDIDO);
+            AtomicInteger consultas = new AtomicInteger();
+            JdbcPedidoRepository repository = new JdbcPedidoRepository(contando(banco.getDataSource(), consultas));
+
+            List<Pedido> pedidos = repository.buscarPorCliente(BancoEmbutido.cliente(0));
+            verificar("buscarPorCliente com vários blocos", pedidos, PEDIDOS_CLIENTE_GRANDE, consultas.getAndSet(0));
+        }
+
+        if (falhas > 0) {
+            System.exit(1);
+        }
+        System.out.println("OK: pedidos de um cliente carregados com 1 + ceil(N/" + TAMANHO_BLOCO_IN + ") consultas");
+    }
+
+    private static void verificar(String operacao, List<Pedido> pedidos, int pedidosEsperados, int consultas) {
+        int esperadas = 1 + (pedidosEsperados + TAMANHO_BLOCO_IN - 1) / TAMANHO_BLOCO_IN;
+        if (pedidos.size() != pedidosEsperados) {
+            falhar(operacao + ": " + pedidos.size() + " pedidos, esperado " + pedidosEsperados);
+        }
+        for (Pedido pedido : pedidos) {
+            if (pedido.getItens().size() != ITENS_POR_PEDIDO) {
+                falhar(operacao + ": pedido " + pedido.getId() + " com " + pedido.getItens().size()
+                        + " itens, esperado " + ITENS_POR_PEDIDO);
+                break;
+            }
+        }
+        if (consultas != esperadas) {
+            falhar(operacao + ": " + consultas + " consultas ao banco, esperado " + esperadas);
+        }
+    }
+
+    private static void falhar(String mensagem) {
+        System.err.println("FALHA: " + mensagem);
+        falhas++;
+    }
+
+    // DataSource cujas conexões contam cada execute*/executeQuery/executeBatch dos statements criados
+    private static DataSource contando(DataSource dataSource, AtomicInteger consultas) {
+        return proxy(DataSource.class, dataSource, (alvo, metodo, args) -> {
+            Object resultado = invocar(alvo, metodo, args);
+            if (resultado instanceof Connection connection) {
+                return proxy(Connection.class, connection, (c, m, a) -> {
+                    Object criado = invocar(c, m, a);
+                    if (criado instanceof Statement) {
+                        Class<?> tipo = m.getReturnType(); // Statement, PreparedStatement ou CallableStatement
+                        return proxy(tipo, criado, (s, ms, as) -> {
+                            if (ms.getName().startsWith("execute")) {
+                                consultas.incrementAndGet();
+                            }
+                            return invocar(s, ms, as);
+                        });
+                    }
+                    return criado;
+                });
+            }
+            return resultado;
+        });
+    }
+
+    private interface Chamada {
+        Object invocar(Object alvo, Method metodo, Object[] args) throws Throwable;
+    }
+
+    private static <T> T proxy(Class<T> tipo, Object alvo, Chamada chamada) {
+        InvocationHandler handler = (p, metodo, args) -> chamada.invocar(alvo, metodo, args);
+        return tipo.cast(Proxy.newProxyInstance(VerificarConsultasPedidos.class.getClassLoader(),
+                new Class<?>[]{tipo}, handler));
+    }
+
+    private static Object invocar(Object alvo, Method metodo, Object[] args) throws Throwable {
+        try {
+            return metodo.invoke(alvo, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package Item3.domain;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Conversão entre BigDecimal (API e banco) e centavos em long (aritmética interna do agregado).
+// Valores com mais de 2 casas (entrada ou DECIMAL do banco) são arredondados ao centavo com
+// HALF_EVEN (arredondamento bancário), sempre na fronteira, antes de qualquer soma.
+public final class Dinheiro {
+    private Dinheiro() {}
+
+    public static long paraCentavos(BigDecimal valor) {
+        try {
+            return valor.setScale(2, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Valor monetário fora do intervalo suportado: " + valor, e);
+        }
+    }
+
+    public static BigDecimal paraBigDecimal(long centavos) {
+        return BigDecimal.valueOf(centavos, 2);
+    }
+}
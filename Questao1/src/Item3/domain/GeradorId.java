@@ -0,0 +1,7 @@
+package Item3.domain;
+
+// Fonte de identidades para novos agregados (ex.: hi/lo, sequência, chave gerada pelo banco)
+@FunctionalInterface
+public interface GeradorId {
+    long proximoId();
+}
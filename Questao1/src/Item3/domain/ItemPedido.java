@@ -3,36 +3,56 @@ package Item3.domain;
 import java.math.BigDecimal;
 
 public class ItemPedido {
+    private Long id; // null enquanto o item não foi persistido
     private String produtoId;
     private int quantidade;
-    private BigDecimal precoUnitario;
-    private BigDecimal subtotal;
+    // Valores em centavos: sem alocação de BigDecimal na aritmética do agregado
+    private long precoUnitarioCentavos;
+    private long subtotalCentavos;
 
     // Construtor de domínio (aplicando invariantes)
     public ItemPedido(String produtoId, int quantidade, BigDecimal precoUnitario) {
+        this(produtoId, quantidade, Dinheiro.paraCentavos(precoUnitario));
+    }
+
+    ItemPedido(String produtoId, int quantidade, long precoUnitarioCentavos) {
         if (quantidade <= 0) {
             throw new IllegalArgumentException("Quantidade deve ser maior que zero");
         }
-        if (precoUnitario.compareTo(BigDecimal.ZERO) <= 0) {
+        if (precoUnitarioCentavos <= 0) {
             throw new IllegalArgumentException("Preço unitário deve ser positivo");
         }
 
         this.produtoId = produtoId;
         this.quantidade = quantidade;
-        this.precoUnitario = precoUnitario;
-        this.subtotal = precoUnitario.multiply(BigDecimal.valueOf(quantidade));
+        this.precoUnitarioCentavos = precoUnitarioCentavos;
+        this.subtotalCentavos = Math.multiplyExact(precoUnitarioCentavos, (long) quantidade);
     }
 
     // ✅ Factory para RESTAURAR a partir do banco (já validado)
     public static ItemPedido restaurar(String produtoId, int quantidade, BigDecimal precoUnitario, BigDecimal subtotal) {
-        ItemPedido item = new ItemPedido(produtoId, quantidade, precoUnitario);
-        item.subtotal = subtotal; // usa o valor salvo no banco
+        return restaurar(null, produtoId, quantidade, precoUnitario, subtotal);
+    }
+
+    // ✅ Factory para RESTAURAR com identidade (linha existente em itens_pedido)
+    public static ItemPedido restaurar(Long id, String produtoId, int quantidade, BigDecimal precoUnitario, BigDecimal subtotal) {
+        return restaurar(id, produtoId, quantidade,
+                Dinheiro.paraCentavos(precoUnitario), Dinheiro.paraCentavos(subtotal));
+    }
+
+    static ItemPedido restaurar(Long id, String produtoId, int quantidade, long precoUnitarioCentavos, long subtotalCentavos) {
+        ItemPedido item = new ItemPedido(produtoId, quantidade, precoUnitarioCentavos);
+        item.subtotalCentavos = subtotalCentavos; // usa o valor salvo no banco
+        item.id = id;
         return item;
     }
 
-    // Getters
+    // Getters (BigDecimal só na fronteira: API e persistência)
+    public Long getId() { return id; }
     public String getProdutoId() { return produtoId; }
     public int getQuantidade() { return quantidade; }
-    public BigDecimal getPrecoUnitario() { return precoUnitario; }
-    public BigDecimal getSubtotal() { return subtotal; }
+    public BigDecimal getPrecoUnitario() { return Dinheiro.paraBigDecimal(precoUnitarioCentavos); }
+    public BigDecimal getSubtotal() { return Dinheiro.paraBigDecimal(subtotalCentavos); }
+    public long getPrecoUnitarioCentavos() { return precoUnitarioCentavos; }
+    public long getSubtotalCentavos() { return subtotalCentavos; }
 }
\ No newline at end of file
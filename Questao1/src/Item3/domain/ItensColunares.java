@@ -0,0 +1,150 @@
+package Item3.domain;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Armazenamento colunar dos itens de um Pedido: um array primitivo por atributo,
+ * com produtoId codificado por dicionário (cada produto distinto guardado uma vez).
+ * Cerca de 28 bytes por linha, contra algumas centenas com um ItemPedido por linha.
+ * ItemPedido só é instanciado quando alguém lê a visão (getItens()).
+ */
+final class ItensColunares {
+    private static final int CAPACIDADE_INICIAL = 8;
+    private static final long SEM_ID = 0L; // ids gerados começam em 1
+
+    private long[] ids = new long[CAPACIDADE_INICIAL];
+    private int[] produtos = new int[CAPACIDADE_INICIAL];
+    private int[] quantidades = new int[CAPACIDADE_INICIAL];
+    private long[] precosCentavos = new long[CAPACIDADE_INICIAL];
+    private long[] subtotaisCentavos = new long[CAPACIDADE_INICIAL];
+    private int tamanho;
+
+    // Dicionário de produtos: código -> produtoId e produtoId -> código
+    private List<String> dicionario = new ArrayList<>();
+    private Map<String, Integer> codigos = new HashMap<>();
+
+    private final List<ItemPedido> visao = new Visao();
+
+    void adicionar(ItemPedido item) {
+        garantirCapacidade(tamanho + 1);
+        ids[tamanho] = item.getId() == null ? SEM_ID : item.getId();
+        produtos[tamanho] = codificar(item.getProdutoId());
+        quantidades[tamanho] = item.getQuantidade();
+        precosCentavos[tamanho] = item.getPrecoUnitarioCentavos();
+        subtotaisCentavos[tamanho] = item.getSubtotalCentavos();
+        tamanho++;
+    }
+
+    void remover(int indice) {
+        verificarIndice(indice);
+        int depois = tamanho - indice - 1;
+        System.arraycopy(ids, indice + 1, ids, indice, depois);
+        System.arraycopy(produtos, indice + 1, produtos, indice, depois);
+        System.arraycopy(quantidades, indice + 1, quantidades, indice, depois);
+        System.arraycopy(precosCentavos, indice + 1, precosCentavos, indice, depois);
+        System.arraycopy(subtotaisCentavos, indice + 1, subtotaisCentavos, indice, depois);
+        tamanho--;
+    }
+
+    // Mesmas regras do construtor de ItemPedido
+    void alterarQuantidade(int indice, int novaQuantidade) {
+        verificarIndice(indice);
+        if (novaQuantidade <= 0) {
+            throw new IllegalArgumentException("Quantidade deve ser maior que zero");
+        }
+        quantidades[indice] = novaQuantidade;
+        subtotaisCentavos[indice] = Math.multiplyExact(precosCentavos[indice], (long) novaQuantidade);
+    }
+
+    void definirId(int indice, long id) {
+        verificarIndice(indice);
+        ids[indice] = id;
+    }
+
+    Long id(int indice) {
+        verificarIndice(indice);
+        return ids[indice] == SEM_ID ? null : ids[indice];
+    }
+
+    boolean temId(int indice) {
+        verificarIndice(indice);
+        return ids[indice] != SEM_ID;
+    }
+
+    long subtotalCentavos(int indice) {
+        verificarIndice(indice);
+        return subtotaisCentavos[indice];
+    }
+
+    int tamanho() { return tamanho; }
+
+    boolean vazio() { return tamanho == 0; }
+
+    ItemPedido item(int indice) {
+        verificarIndice(indice);
+        return ItemPedido.restaurar(id(indice), dicionario.get(produtos[indice]), quantidades[indice],
+                precosCentavos[indice], subtotaisCentavos[indice]);
+    }
+
+    // Visão somente leitura; cada get() materializa um ItemPedido
+    List<ItemPedido> visao() { return visao; }
+
+    ItensColunares copia() {
+        ItensColunares copia = new ItensColunares();
+        copia.ids = Arrays.copyOf(ids, Math.max(tamanho, CAPACIDADE_INICIAL));
+        copia.produtos = Arrays.copyOf(produtos, copia.ids.length);
+        copia.quantidades = Arrays.copyOf(quantidades, copia.ids.length);
+        copia.precosCentavos = Arrays.copyOf(precosCentavos, copia.ids.length);
+        copia.subtotaisCentavos = Arrays.copyOf(subtotaisCentavos, copia.ids.length);
+        copia.tamanho = tamanho;
+        copia.dicionario = new ArrayList<>(dicionario);
+        copia.codigos = new HashMap<>(codigos);
+        return copia;
+    }
+
+    private int codificar(String produtoId) {
+        Integer codigo = codigos.get(produtoId);
+        if (codigo == null) {
+            codigo = dicionario.size();
+            dicionario.add(produtoId);
+            codigos.put(produtoId, codigo);
+        }
+        return codigo;
+    }
+
+    private void garantirCapacidade(int necessaria) {
+        if (necessaria <= ids.length) {
+            return;
+        }
+        int novaCapacidade = Math.max(necessaria, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, novaCapacidade);
+        produtos = Arrays.copyOf(produtos, novaCapacidade);
+        quantidades = Arrays.copyOf(quantidades, novaCapacidade);
+        precosCentavos = Arrays.copyOf(precosCentavos, novaCapacidade);
+        subtotaisCentavos = Arrays.copyOf(subtotaisCentavos, novaCapacidade);
+    }
+
+    private void verificarIndice(int indice) {
+        if (indice < 0 || indice >= tamanho) {
+            throw new IndexOutOfBoundsException("Item " + indice + " inexistente (total " + tamanho + ")");
+        }
+    }
+
+    private class Visao extends AbstractList<ItemPedido> implements RandomAccess {
+        @Override
+        public ItemPedido get(int indice) {
+            return item(indice);
+        }
+
+        @Override
+        public int size() {
+            return tamanho;
+        }
+    }
+}
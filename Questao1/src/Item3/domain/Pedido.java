@@ -4,23 +4,31 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 // Aggregate Root
 public class Pedido {
     private Long id;
     private String clienteId;
     private StatusPedido status;
-    private List<ItemPedido> itens;
-    private BigDecimal valorTotal;
+    private ItensColunares itens; // colunar: poucos bytes por linha mesmo em pedidos enormes
+    private long valorTotalCentavos; // mantido incrementalmente a cada alteração de item
+    private boolean valorTotalDesconhecido; // valor_total nulo no banco e sem itens para recalcular
     private LocalDateTime dataCriacao;
+    private long versao; // controle de concorrência otimista (incrementada a cada UPDATE)
+
+    // Rastreamento de alterações desde a última persistência (itens novos são os que têm id null)
+    private Set<Long> idsItensAlterados = new LinkedHashSet<>();
+    private List<Long> idsItensRemovidos = new ArrayList<>();
 
     // Construtor privado - só pode ser criado via métodos de negócio
     private Pedido(String clienteId) {
         this.clienteId = clienteId;
         this.status = StatusPedido.RASCUNHO;
-        this.itens = new ArrayList<>();
-        this.valorTotal = BigDecimal.ZERO;
+        this.itens = new ItensColunares();
+        this.valorTotalCentavos = 0;
         this.dataCriacao = LocalDateTime.now();
     }
 
@@ -34,11 +42,21 @@ public class Pedido {
     // ✅ Factory para RESTAURAR pedido (sem itens ainda)
     public static Pedido restaurar(Long id, String clienteId, StatusPedido status,
                                    BigDecimal valorTotal, LocalDateTime dataCriacao) {
+        return restaurar(id, clienteId, status, valorTotal, dataCriacao, 0L);
+    }
+
+    public static Pedido restaurar(Long id, String clienteId, StatusPedido status,
+                                   BigDecimal valorTotal, LocalDateTime dataCriacao, long versao) {
         Pedido pedido = new Pedido(clienteId);
         pedido.id = id;
         pedido.status = status;
-        pedido.valorTotal = valorTotal;
+        if (valorTotal == null) {
+            pedido.valorTotalDesconhecido = true; // getValorTotal() devolve null, como o banco
+        } else {
+            pedido.valorTotalCentavos = Dinheiro.paraCentavos(valorTotal);
+        }
         pedido.dataCriacao = dataCriacao;
+        pedido.versao = versao;
         return pedido;
     }
 
@@ -46,11 +64,35 @@ public class Pedido {
     public static Pedido restaurarComItens(Long id, String clienteId, StatusPedido status,
                                            BigDecimal valorTotal, LocalDateTime dataCriacao,
                                            List<ItemPedido> itens) {
-        Pedido pedido = restaurar(id, clienteId, status, valorTotal, dataCriacao);
-        pedido.itens = new ArrayList<>(itens); // encapsula cópia
+        return restaurarComItens(id, clienteId, status, valorTotal, dataCriacao, 0L, itens);
+    }
+
+    public static Pedido restaurarComItens(Long id, String clienteId, StatusPedido status,
+                                           BigDecimal valorTotal, LocalDateTime dataCriacao,
+                                           long versao, List<ItemPedido> itens) {
+        Pedido pedido = restaurar(id, clienteId, status, valorTotal, dataCriacao, versao);
+        for (ItemPedido item : itens) { // encapsula cópia
+            pedido.itens.adicionar(item);
+        }
+        if (pedido.valorTotalDesconhecido) {
+            // Sem total gravado: recalcula pela INVARIANTE 2 (soma dos itens)
+            pedido.valorTotalDesconhecido = false;
+            for (int i = 0; i < pedido.itens.tamanho(); i++) {
+                pedido.somarAoTotal(pedido.itens.subtotalCentavos(i));
+            }
+        }
         return pedido;
     }
 
+    // Cópia independente do agregado (colunas e rastreamento são copiados)
+    public Pedido copia() {
+        Pedido copia = restaurar(id, clienteId, status, getValorTotal(), dataCriacao, versao);
+        copia.itens = itens.copia();
+        copia.idsItensAlterados.addAll(idsItensAlterados);
+        copia.idsItensRemovidos.addAll(idsItensRemovidos);
+        return copia;
+    }
+
     // INVARIANTE 1: Pedido deve ter pelo menos 1 item para ser confirmado
     // INVARIANTE 2: Valor total deve ser sempre a soma dos itens
     // INVARIANTE 3: Só pode adicionar itens se status for RASCUNHO
@@ -68,8 +110,39 @@ public class Pedido {
         }
 
         ItemPedido item = new ItemPedido(produtoId, quantidade, precoUnitario);
-        itens.add(item);
-        recalcularValorTotal(); // Mantém invariante do valor total
+        itens.adicionar(item);
+        somarAoTotal(item.getSubtotalCentavos()); // Mantém invariante do valor total em O(1)
+    }
+
+    // Remove o item na posição informada (mesmas regras de status da adição)
+    public void removerItem(int indice) {
+        if (status != StatusPedido.RASCUNHO) {
+            throw new IllegalStateException("Não é possível remover itens de um pedido " + status);
+        }
+
+        Long idRemovido = itens.id(indice);
+        long subtotalRemovido = itens.subtotalCentavos(indice);
+        itens.remover(indice);
+        if (idRemovido != null) {
+            idsItensAlterados.remove(idRemovido);
+            idsItensRemovidos.add(idRemovido);
+        }
+        somarAoTotal(-subtotalRemovido);
+    }
+
+    // Altera a quantidade do item na posição informada, preservando sua identidade
+    public void alterarQuantidade(int indice, int novaQuantidade) {
+        if (status != StatusPedido.RASCUNHO) {
+            throw new IllegalStateException("Não é possível alterar itens de um pedido " + status);
+        }
+
+        long subtotalAnterior = itens.subtotalCentavos(indice);
+        itens.alterarQuantidade(indice, novaQuantidade);
+        Long idAlterado = itens.id(indice);
+        if (idAlterado != null) {
+            idsItensAlterados.add(idAlterado);
+        }
+        somarAoTotal(itens.subtotalCentavos(indice) - subtotalAnterior);
     }
 
     // INVARIANTE: Só pode confirmar se tiver itens
@@ -78,27 +151,71 @@ public class Pedido {
             throw new IllegalStateException("Pedido já foi processado");
         }
 
-        if (itens.isEmpty()) {
+        if (itens.vazio()) {
             throw new IllegalStateException("Pedido deve ter pelo menos um item para ser confirmado");
         }
 
         this.status = StatusPedido.CONFIRMADO;
     }
 
-    // INVARIANTE: Valor total sempre correto
-    private void recalcularValorTotal() {
-        this.valorTotal = itens.stream()
-                .map(ItemPedido::getSubtotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    // INVARIANTE: Valor total sempre correto (soma incremental dos subtotais, com checagem de overflow)
+    private void somarAoTotal(long deltaCentavos) {
+        this.valorTotalCentavos = Math.addExact(valorTotalCentavos, deltaCentavos);
+        this.valorTotalDesconhecido = false; // a partir daqui o total é a soma dos itens carregados
     }
 
     // Getters (sem setters públicos - encapsulamento)
     public Long getId() { return id; }
     public String getClienteId() { return clienteId; }
     public StatusPedido getStatus() { return status; }
-    public List<ItemPedido> getItens() { return Collections.unmodifiableList(itens); }
-    public BigDecimal getValorTotal() { return valorTotal; }
+    public List<ItemPedido> getItens() { return itens.visao(); } // visão lazy e somente leitura
+    public BigDecimal getValorTotal() { return valorTotalDesconhecido ? null : Dinheiro.paraBigDecimal(valorTotalCentavos); }
+    public long getValorTotalCentavos() { return valorTotalCentavos; }
     public LocalDateTime getDataCriacao() { return dataCriacao; }
+    public long getVersao() { return versao; }
+
+    // Alterações pendentes, consumidas pelo repositório para gravar só o que mudou
+    public List<ItemPedido> getItensAdicionados() {
+        List<ItemPedido> adicionados = new ArrayList<>();
+        for (int i = 0; i < itens.tamanho(); i++) {
+            if (!itens.temId(i)) {
+                adicionados.add(itens.item(i));
+            }
+        }
+        return adicionados;
+    }
+
+    public List<ItemPedido> getItensAlterados() {
+        List<ItemPedido> alterados = new ArrayList<>(idsItensAlterados.size());
+        if (idsItensAlterados.isEmpty()) {
+            return alterados;
+        }
+        for (int i = 0; i < itens.tamanho(); i++) {
+            if (itens.temId(i) && idsItensAlterados.contains(itens.id(i))) {
+                alterados.add(itens.item(i));
+            }
+        }
+        return alterados;
+    }
+
+    public List<Long> getIdsItensRemovidos() { return Collections.unmodifiableList(idsItensRemovidos); }
+
+    // Chamado pelo repositório após o commit: registra a versão gravada, atribui os ids
+    // gerados aos itens novos (na mesma ordem de getItensAdicionados) e zera o rastreamento
+    public void marcarComoSalvo(long versaoGravada, List<Long> idsItensInseridos) {
+        this.versao = versaoGravada;
+        int proximo = 0;
+        for (int i = 0; i < itens.tamanho(); i++) {
+            if (!itens.temId(i)) {
+                if (proximo >= idsItensInseridos.size()) {
+                    throw new IllegalArgumentException("Ids insuficientes para os itens adicionados");
+                }
+                itens.definirId(i, idsItensInseridos.get(proximo++));
+            }
+        }
+        idsItensAlterados.clear();
+        idsItensRemovidos.clear();
+    }
 
     // ⚠️ setter package-private (sem modificador, só o pacote "domain" vê)
     void setId(Long id) {
@@ -0,0 +1,18 @@
+package Item3.domain.repository;
+
+// Lançada quando o pedido foi alterado por outro escritor desde que foi lido (versão divergente)
+public class ConflitoConcorrenciaException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final Long pedidoId;
+    private final long versaoEsperada;
+
+    public ConflitoConcorrenciaException(Long pedidoId, long versaoEsperada) {
+        super("Pedido " + pedidoId + " foi alterado por outra transação (versão esperada " + versaoEsperada + ")");
+        this.pedidoId = pedidoId;
+        this.versaoEsperada = versaoEsperada;
+    }
+
+    public Long getPedidoId() { return pedidoId; }
+    public long getVersaoEsperada() { return versaoEsperada; }
+}
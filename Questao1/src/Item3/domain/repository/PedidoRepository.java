@@ -2,13 +2,19 @@ package Item3.domain.repository;
 
 import Item3.domain.Pedido;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 // Repository gerencia APENAS o agregado Pedido (não ItemPedido individualmente)
 public interface PedidoRepository {
     void salvar(Pedido pedido);           // Salva o agregado completo
+    ResultadoLote salvarTodos(Collection<Pedido> pedidos); // Salva vários agregados em lotes
     Optional<Pedido> buscarPorId(Long id); // Recupera o agregado completo
     List<Pedido> buscarPorCliente(String clienteId);
+    List<Pedido> buscarPorCliente(String clienteId, Long aposId, int limite); // Página por chave: id > aposId
+    Stream<Pedido> streamPorCliente(String clienteId); // Sob demanda; o chamador deve fechar o Stream
+    List<ResumoPedido> resumosPorCliente(String clienteId); // Só cabeçalhos, não carrega itens
     void remover(Pedido pedido);          // Remove o agregado completo
 }
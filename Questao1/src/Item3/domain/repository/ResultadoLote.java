@@ -0,0 +1,29 @@
+package Item3.domain.repository;
+
+import java.time.Duration;
+
+// Resultado de uma gravação em lote (quantos agregados e em quanto tempo)
+public class ResultadoLote {
+    private final int pedidosSalvos;
+    private final Duration duracao;
+
+    public ResultadoLote(int pedidosSalvos, Duration duracao) {
+        this.pedidosSalvos = pedidosSalvos;
+        this.duracao = duracao;
+    }
+
+    public int getPedidosSalvos() { return pedidosSalvos; }
+    public Duration getDuracao() { return duracao; }
+
+    // Vazão em pedidos por segundo
+    public double getPedidosPorSegundo() {
+        long nanos = duracao.toNanos();
+        return nanos == 0 ? 0 : pedidosSalvos * 1_000_000_000.0 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d pedidos em %d ms (%.1f pedidos/s)",
+                pedidosSalvos, duracao.toMillis(), getPedidosPorSegundo());
+    }
+}
@@ -0,0 +1,26 @@
+package Item3.domain.repository;
+
+import Item3.domain.StatusPedido;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Projeção somente leitura para listagens: só colunas do cabeçalho, sem itens
+public class ResumoPedido {
+    private final Long id;
+    private final StatusPedido status;
+    private final BigDecimal valorTotal;
+    private final LocalDateTime dataCriacao;
+
+    public ResumoPedido(Long id, StatusPedido status, BigDecimal valorTotal, LocalDateTime dataCriacao) {
+        this.id = id;
+        this.status = status;
+        this.valorTotal = valorTotal;
+        this.dataCriacao = dataCriacao;
+    }
+
+    public Long getId() { return id; }
+    public StatusPedido getStatus() { return status; }
+    public BigDecimal getValorTotal() { return valorTotal; }
+    public LocalDateTime getDataCriacao() { return dataCriacao; }
+}
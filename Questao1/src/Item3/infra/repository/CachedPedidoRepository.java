@@ -0,0 +1,204 @@
+package Item3.infra.repository;
+
+import Item3.domain.Pedido;
+import Item3.domain.repository.PedidoRepository;
+import Item3.domain.repository.ResultadoLote;
+import Item3.domain.repository.ResumoPedido;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Decorator com cache de agregados para buscarPorId (LRU limitado por peso).
+ * O peso de cada pedido é 1 + quantidade de itens, então pedidos grandes ocupam mais.
+ * salvar/remover invalidam a entrada; quem lê sempre recebe uma cópia,
+ * para que alterações fora do repositório não contaminem o cache.
+ */
+public class CachedPedidoRepository implements PedidoRepository {
+    private final PedidoRepository delegate;
+    private final long pesoMaximo;
+    private final Duration ttl; // null = sem expiração
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<Long, Entrada> entradas = new LinkedHashMap<>(16, 0.75f, true);
+    private long pesoAtual;
+    private long geracao; // incrementada a cada invalidação
+
+    private final LongAdder acertos = new LongAdder();
+    private final LongAdder falhas = new LongAdder();
+    private final LongAdder despejos = new LongAdder();
+
+    public CachedPedidoRepository(PedidoRepository delegate, long pesoMaximo) {
+        this(delegate, pesoMaximo, null);
+    }
+
+    public CachedPedidoRepository(PedidoRepository delegate, long pesoMaximo, Duration ttl) {
+        if (pesoMaximo <= 0) {
+            throw new IllegalArgumentException("Peso máximo deve ser maior que zero");
+        }
+        this.delegate = delegate;
+        this.pesoMaximo = pesoMaximo;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public Optional<Pedido> buscarPorId(Long id) {
+        long geracaoNaLeitura;
+        lock.lock();
+        try {
+            Entrada entrada = entradas.get(id);
+            if (entrada != null && !entrada.expirada(System.nanoTime())) {
+                acertos.increment();
+                return Optional.of(entrada.pedido.copia());
+            }
+            if (entrada != null) {
+                remover(id);
+                despejos.increment();
+            }
+            geracaoNaLeitura = geracao;
+        } finally {
+            lock.unlock();
+        }
+
+        falhas.increment();
+        Optional<Pedido> carregado = delegate.buscarPorId(id);
+        carregado.ifPresent(pedido -> guardar(pedido, geracaoNaLeitura));
+        return carregado;
+    }
+
+    @Override
+    public void salvar(Pedido pedido) {
+        try {
+            delegate.salvar(pedido);
+        } finally {
+            invalidar(pedido.getId());
+        }
+    }
+
+    @Override
+    public ResultadoLote salvarTodos(Collection<Pedido> pedidos) {
+        try {
+            return delegate.salvarTodos(pedidos);
+        } finally {
+            for (Pedido pedido : pedidos) {
+                invalidar(pedido.getId());
+            }
+        }
+    }
+
+    @Override
+    public void remover(Pedido pedido) {
+        try {
+            delegate.remover(pedido);
+        } finally {
+            invalidar(pedido.getId());
+        }
+    }
+
+    // Consultas por cliente não passam pelo cache (evita poluí-lo com varreduras)
+    @Override
+    public List<Pedido> buscarPorCliente(String clienteId) {
+        return delegate.buscarPorCliente(clienteId);
+    }
+
+    @Override
+    public List<Pedido> buscarPorCliente(String clienteId, Long aposId, int limite) {
+        return delegate.buscarPorCliente(clienteId, aposId, limite);
+    }
+
+    @Override
+    public Stream<Pedido> streamPorCliente(String clienteId) {
+        return delegate.streamPorCliente(clienteId);
+    }
+
+    @Override
+    public List<ResumoPedido> resumosPorCliente(String clienteId) {
+        return delegate.resumosPorCliente(clienteId);
+    }
+
+    public void invalidar(Long id) {
+        if (id == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            geracao++;
+            remover(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Só guarda se nenhuma invalidação ocorreu durante a carga (senão o valor pode estar velho)
+    private void guardar(Pedido pedido, long geracaoNaLeitura) {
+        long peso = 1L + pedido.getItens().size();
+        if (peso > pesoMaximo) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            if (geracao != geracaoNaLeitura) {
+                return;
+            }
+            remover(pedido.getId());
+            long expiraEm = ttl == null ? Long.MAX_VALUE : System.nanoTime() + ttl.toNanos();
+            entradas.put(pedido.getId(), new Entrada(pedido.copia(), peso, expiraEm));
+            pesoAtual += peso;
+
+            // Despeja os menos usados até caber
+            Iterator<Map.Entry<Long, Entrada>> it = entradas.entrySet().iterator();
+            while (pesoAtual > pesoMaximo && it.hasNext()) {
+                pesoAtual -= it.next().getValue().peso;
+                it.remove();
+                despejos.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void remover(Long id) {
+        Entrada removida = entradas.remove(id);
+        if (removida != null) {
+            pesoAtual -= removida.peso;
+        }
+    }
+
+    public long getAcertos() { return acertos.sum(); }
+    public long getFalhas() { return falhas.sum(); }
+    public long getDespejos() { return despejos.sum(); }
+
+    public int getTamanho() {
+        lock.lock();
+        try {
+            return entradas.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static class Entrada {
+        final Pedido pedido;
+        final long peso;
+        final long expiraEm;
+
+        Entrada(Pedido pedido, long peso, long expiraEm) {
+            this.pedido = pedido;
+            this.peso = peso;
+            this.expiraEm = expiraEm;
+        }
+
+        boolean expirada(long agora) {
+            return agora - expiraEm > 0 && expiraEm != Long.MAX_VALUE;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package Item3.infra.repository;
+
+import Item3.domain.Dinheiro;
+import Item3.domain.ItemPedido;
+import Item3.domain.Pedido;
+import Item3.domain.StatusPedido;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+// Formato binário do agregado no log do FilePedidoRepository
+final class CodificadorPedido {
+    private static final long TOTAL_DESCONHECIDO = Long.MIN_VALUE; // valor_total nulo na origem
+
+    private CodificadorPedido() {}
+
+    static byte[] codificar(Pedido pedido) {
+        List<ItemPedido> itens = pedido.getItens();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + itens.size() * 40);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(pedido.getId());
+            out.writeUTF(pedido.getClienteId());
+            out.writeUTF(pedido.getStatus().name());
+            out.writeLong(pedido.getValorTotal() == null ? TOTAL_DESCONHECIDO : pedido.getValorTotalCentavos());
+            out.writeLong(pedido.getDataCriacao().toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(pedido.getDataCriacao().getNano());
+            out.writeLong(pedido.getVersao());
+            out.writeInt(itens.size());
+            for (ItemPedido item : itens) {
+                out.writeLong(item.getId());
+                out.writeUTF(item.getProdutoId());
+                out.writeInt(item.getQuantidade());
+                out.writeLong(item.getPrecoUnitarioCentavos());
+                out.writeLong(item.getSubtotalCentavos());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Pedido decodificar(byte[] dados) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(dados))) {
+            long id = in.readLong();
+            String clienteId = in.readUTF();
+            StatusPedido status = StatusPedido.valueOf(in.readUTF());
+            long valorTotalCentavos = in.readLong();
+            LocalDateTime dataCriacao = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+            long versao = in.readLong();
+
+            int quantidadeItens = in.readInt();
+            List<ItemPedido> itens = new ArrayList<>(quantidadeItens);
+            for (int i = 0; i < quantidadeItens; i++) {
+                itens.add(ItemPedido.restaurar(
+                        in.readLong(),
+                        in.readUTF(),
+                        in.readInt(),
+                        Dinheiro.paraBigDecimal(in.readLong()),
+                        Dinheiro.paraBigDecimal(in.readLong())
+                ));
+            }
+
+            return Pedido.restaurarComItens(id, clienteId, status,
+                    valorTotalCentavos == TOTAL_DESCONHECIDO ? null : Dinheiro.paraBigDecimal(valorTotalCentavos), dataCriacao, versao, itens);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
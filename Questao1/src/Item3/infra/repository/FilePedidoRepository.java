@@ -0,0 +1,547 @@
+package Item3.infra.repository;
+
+import Item3.domain.Pedido;
+import Item3.domain.repository.ConflitoConcorrenciaException;
+import Item3.domain.repository.PedidoRepository;
+import Item3.domain.repository.ResultadoLote;
+import Item3.domain.repository.ResumoPedido;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Implementação em arquivo local, para instalações sem banco de dados.
+ * Cada gravação é anexada a um log dividido em segmentos mapeados em memória;
+ * um índice em memória aponta para o registro mais recente de cada pedido.
+ * Periodicamente os registros vivos são compactados num snapshot (gravado à parte
+ * e trocado por rename atômico) e os segmentos antigos são apagados. Na abertura,
+ * carrega o snapshot e reaplica só a cauda do log.
+ *
+ * Registro: [tamanho int][tipo byte][dados][crc32 int]. Tamanho zero marca o fim do
+ * log; um registro com CRC inválido (gravação interrompida) também encerra a leitura.
+ */
+public class FilePedidoRepository implements PedidoRepository, AutoCloseable {
+    public static final int TAMANHO_SEGMENTO_PADRAO = 64 * 1024 * 1024;
+    public static final int REGISTROS_ENTRE_SNAPSHOTS_PADRAO = 100_000;
+    public static final Duration INTERVALO_AGRUPADO_PADRAO = Duration.ofMillis(10);
+
+    private static final Logger LOGGER = Logger.getLogger(FilePedidoRepository.class.getName());
+
+    private static final byte TIPO_SALVAR = 1;
+    private static final byte TIPO_REMOVER = 2;
+    private static final int CABECALHO_REGISTRO = 4 + 1;
+    private static final int RODAPE_REGISTRO = 4;
+    private static final long MAGICO_SNAPSHOT = 0x50454449444f5331L; // "PEDIDOS1"
+    private static final int CABECALHO_SNAPSHOT = 8 + 4 + 8 + 8 + 4;
+    private static final int SEGMENTO_SNAPSHOT = 0; // segmentos do log começam em 1
+    private static final String ARQUIVO_SNAPSHOT = "snapshot.dat";
+
+    private final Path diretorio;
+    private final ModoDurabilidade modo;
+    private final int tamanhoSegmento;
+    private final int registrosEntreSnapshots;
+
+    // Índice de offsets: id -> localização, versão e cliente do registro mais recente
+    private final ConcurrentHashMap<Long, Entrada> indice = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, NavigableSet<Long>> idsPorCliente = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, ByteBuffer> segmentos = new ConcurrentHashMap<>();
+    private final AtomicLong sequenciaPedidos = new AtomicLong();
+    private final AtomicLong sequenciaItens = new AtomicLong();
+
+    // Um único escritor anexa ao log; o snapshot também exclui leitores enquanto troca os segmentos
+    private final ReentrantLock escrita = new ReentrantLock();
+    private final ReentrantReadWriteLock troca = new ReentrantReadWriteLock();
+
+    private volatile MappedByteBuffer segmentoAtivo;
+    private int numeroSegmentoAtivo;
+    private int posicaoEscrita;
+    private int registrosDesdeSnapshot;
+    private final ScheduledExecutorService sincronizador;
+    // Primeira falha do fsync em segundo plano (AGRUPADO): a partir dela novas gravações são recusadas
+    private volatile RuntimeException falhaSincronizacao;
+
+    private record Entrada(long localizacao, long versao, String clienteId) {}
+
+    public FilePedidoRepository(Path diretorio, ModoDurabilidade modo) {
+        this(diretorio, modo, TAMANHO_SEGMENTO_PADRAO, REGISTROS_ENTRE_SNAPSHOTS_PADRAO, INTERVALO_AGRUPADO_PADRAO);
+    }
+
+    public FilePedidoRepository(Path diretorio, ModoDurabilidade modo, int tamanhoSegmento,
+                                int registrosEntreSnapshots, Duration intervaloAgrupado) {
+        if (tamanhoSegmento < 1024) {
+            throw new IllegalArgumentException("Tamanho do segmento deve ser de pelo menos 1 KB");
+        }
+        if (registrosEntreSnapshots <= 0) {
+            throw new IllegalArgumentException("Intervalo entre snapshots deve ser maior que zero");
+        }
+        this.diretorio = diretorio;
+        this.modo = modo;
+        this.tamanhoSegmento = tamanhoSegmento;
+        this.registrosEntreSnapshots = registrosEntreSnapshots;
+
+        try {
+            Files.createDirectories(diretorio);
+            recuperar();
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao abrir log de pedidos em " + diretorio, e);
+        }
+
+        if (modo == ModoDurabilidade.AGRUPADO) {
+            sincronizador = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "sincronizacao-log-pedidos");
+                t.setDaemon(true);
+                return t;
+            });
+            long intervalo = intervaloAgrupado.toNanos();
+            sincronizador.scheduleWithFixedDelay(this::sincronizar, intervalo, intervalo, TimeUnit.NANOSECONDS);
+        } else {
+            sincronizador = null;
+        }
+    }
+
+    @Override
+    public void salvar(Pedido pedido) {
+        int itensNovos = pedido.getItensAdicionados().size();
+
+        escrita.lock();
+        try {
+            List<Long> idsItens = new ArrayList<>(itensNovos);
+            for (int i = 0; i < itensNovos; i++) {
+                idsItens.add(sequenciaItens.incrementAndGet());
+            }
+
+            Long id = pedido.getId();
+            long versaoGravada;
+            if (id == null) {
+                id = sequenciaPedidos.incrementAndGet();
+                versaoGravada = pedido.getVersao();
+            } else {
+                Entrada atual = indice.get(id);
+                if (atual == null || atual.versao() != pedido.getVersao()) {
+                    throw new ConflitoConcorrenciaException(id, pedido.getVersao());
+                }
+                versaoGravada = pedido.getVersao() + 1;
+            }
+
+            long novoId = id;
+            Pedido gravado = pedido.copia();
+            if (gravado.getId() == null) {
+                IdentidadePedido.atribuir(gravado, novoId);
+            }
+            gravado.marcarComoSalvo(versaoGravada, idsItens);
+
+            long localizacao = anexar(TIPO_SALVAR, CodificadorPedido.codificar(gravado));
+            indexar(novoId, new Entrada(localizacao, versaoGravada, gravado.getClienteId()));
+
+            // Só depois de gravado no log o agregado do chamador recebe id e estado salvo
+            if (pedido.getId() == null) {
+                IdentidadePedido.atribuir(pedido, novoId);
+            }
+            pedido.marcarComoSalvo(versaoGravada, idsItens);
+
+            talvezGerarSnapshot();
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    // Cada agregado é atômico; no modo POR_COMMIT cada um é forçado ao disco
+    @Override
+    public ResultadoLote salvarTodos(Collection<Pedido> lote) {
+        long inicio = System.nanoTime();
+        int salvos = 0;
+        for (Pedido pedido : lote) {
+            salvar(pedido);
+            salvos++;
+        }
+        return new ResultadoLote(salvos, Duration.ofNanos(System.nanoTime() - inicio));
+    }
+
+    @Override
+    public Optional<Pedido> buscarPorId(Long id) {
+        troca.readLock().lock();
+        try {
+            Entrada entrada = indice.get(id);
+            return entrada == null ? Optional.empty() : Optional.of(lerPedido(entrada.localizacao()));
+        } finally {
+            troca.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Pedido> buscarPorCliente(String clienteId) {
+        return buscarPorCliente(clienteId, null, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Pedido> buscarPorCliente(String clienteId, Long aposId, int limite) {
+        NavigableSet<Long> ids = idsDoCliente(clienteId);
+        NavigableSet<Long> seguintes = aposId == null ? ids : ids.tailSet(aposId, false);
+
+        List<Pedido> pagina = new ArrayList<>(Math.min(limite, 64));
+        troca.readLock().lock();
+        try {
+            for (Long id : seguintes) {
+                if (pagina.size() >= limite) {
+                    break;
+                }
+                Entrada entrada = indice.get(id);
+                if (entrada != null) {
+                    pagina.add(lerPedido(entrada.localizacao()));
+                }
+            }
+        } finally {
+            troca.readLock().unlock();
+        }
+        return pagina;
+    }
+
+    // Decodifica um pedido por vez, sem segurar o lock entre elementos
+    @Override
+    public Stream<Pedido> streamPorCliente(String clienteId) {
+        return idsDoCliente(clienteId).stream()
+                .map(this::buscarPorId)
+                .flatMap(Optional::stream);
+    }
+
+    @Override
+    public List<ResumoPedido> resumosPorCliente(String clienteId) {
+        List<ResumoPedido> resumos = new ArrayList<>();
+        for (Pedido pedido : buscarPorCliente(clienteId)) {
+            resumos.add(new ResumoPedido(pedido.getId(), pedido.getStatus(),
+                    pedido.getValorTotal(), pedido.getDataCriacao()));
+        }
+        return resumos;
+    }
+
+    @Override
+    public void remover(Pedido pedido) {
+        escrita.lock();
+        try {
+            if (!indice.containsKey(pedido.getId())) {
+                return;
+            }
+            anexar(TIPO_REMOVER, ByteBuffer.allocate(8).putLong(0, pedido.getId()).array());
+            desindexar(pedido.getId());
+            talvezGerarSnapshot();
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    // Força o log pendente ao disco e para a sincronização em segundo plano
+    @Override
+    public void close() {
+        if (sincronizador != null) {
+            sincronizador.shutdown();
+        }
+        escrita.lock();
+        try {
+            segmentoAtivo.force();
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    // Nula enquanto o fsync em segundo plano nunca falhou
+    public RuntimeException getFalhaSincronizacao() { return falhaSincronizacao; }
+
+    // Tarefa periódica do modo AGRUPADO. Uma exceção escapando cancelaria todas as execuções
+    // seguintes em silêncio; por isso a falha é registrada, logada e as gravações passam a falhar.
+    private void sincronizar() {
+        try {
+            segmentoAtivo.force();
+        } catch (RuntimeException e) {
+            if (falhaSincronizacao == null) {
+                falhaSincronizacao = e;
+                LOGGER.log(Level.SEVERE, "Falha ao sincronizar o log de pedidos em " + diretorio
+                        + "; novas gravações serão recusadas", e);
+            }
+        }
+    }
+
+    // Compacta o estado atual num snapshot, independentemente do intervalo configurado
+    public void gerarSnapshot() {
+        escrita.lock();
+        troca.writeLock().lock();
+        try {
+            // Novas gravações vão para um segmento novo: tudo antes dele entra no snapshot
+            abrirNovoSegmento(numeroSegmentoAtivo + 1);
+            int primeiroSegmentoRestante = numeroSegmentoAtivo;
+
+            Path temporario = diretorio.resolve(ARQUIVO_SNAPSHOT + ".tmp");
+            Map<Long, Long> novasLocalizacoes = new TreeMap<>();
+            try (OutputStream arquivo = Files.newOutputStream(temporario);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(arquivo, 1 << 16))) {
+                out.writeLong(MAGICO_SNAPSHOT);
+                out.writeInt(primeiroSegmentoRestante);
+                out.writeLong(sequenciaPedidos.get());
+                out.writeLong(sequenciaItens.get());
+                out.writeInt(indice.size());
+
+                int posicao = CABECALHO_SNAPSHOT;
+                for (Map.Entry<Long, Entrada> e : indice.entrySet()) {
+                    byte[] dados = lerDados(e.getValue().localizacao());
+                    out.writeInt(dados.length);
+                    out.writeByte(TIPO_SALVAR);
+                    out.write(dados);
+                    out.writeInt(crc(TIPO_SALVAR, dados));
+                    novasLocalizacoes.put(e.getKey(), localizacao(SEGMENTO_SNAPSHOT, posicao));
+                    posicao += CABECALHO_REGISTRO + dados.length + RODAPE_REGISTRO;
+                }
+            }
+            try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.WRITE)) {
+                canal.force(true);
+            }
+            Path snapshot = diretorio.resolve(ARQUIVO_SNAPSHOT);
+            Files.move(temporario, snapshot, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            segmentos.put(SEGMENTO_SNAPSHOT, mapearSomenteLeitura(snapshot));
+            for (Map.Entry<Long, Long> e : novasLocalizacoes.entrySet()) {
+                Entrada antiga = indice.get(e.getKey());
+                indice.put(e.getKey(), new Entrada(e.getValue(), antiga.versao(), antiga.clienteId()));
+            }
+            for (Integer numero : new ArrayList<>(segmentos.keySet())) {
+                if (numero != SEGMENTO_SNAPSHOT && numero < primeiroSegmentoRestante) {
+                    segmentos.remove(numero);
+                    Files.deleteIfExists(arquivoSegmento(numero));
+                }
+            }
+            registrosDesdeSnapshot = 0;
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao gerar snapshot de pedidos", e);
+        } finally {
+            troca.writeLock().unlock();
+            escrita.unlock();
+        }
+    }
+
+    private void talvezGerarSnapshot() {
+        if (++registrosDesdeSnapshot >= registrosEntreSnapshots) {
+            gerarSnapshot();
+        }
+    }
+
+    private long anexar(byte tipo, byte[] dados) {
+        int tamanhoRegistro = CABECALHO_REGISTRO + dados.length + RODAPE_REGISTRO;
+        if (tamanhoRegistro > tamanhoSegmento) {
+            throw new IllegalArgumentException("Pedido de " + dados.length + " bytes não cabe num segmento do log");
+        }
+        RuntimeException falha = falhaSincronizacao;
+        if (falha != null) {
+            // Registros anteriores podem não ter chegado ao disco: não confirma mais nada por cima deles
+            throw new IllegalStateException("Log de pedidos sem sincronização desde uma falha de fsync", falha);
+        }
+        try {
+            if (posicaoEscrita + tamanhoRegistro > tamanhoSegmento) {
+                abrirNovoSegmento(numeroSegmentoAtivo + 1);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao abrir novo segmento do log de pedidos", e);
+        }
+
+        MappedByteBuffer ativo = segmentoAtivo;
+        int posicao = posicaoEscrita;
+        ativo.put(posicao + 4, tipo);
+        ativo.put(posicao + CABECALHO_REGISTRO, dados);
+        ativo.putInt(posicao + CABECALHO_REGISTRO + dados.length, crc(tipo, dados));
+        ativo.putInt(posicao, dados.length); // tamanho por último: registro incompleto lê como fim do log
+        posicaoEscrita += tamanhoRegistro;
+
+        if (modo == ModoDurabilidade.POR_COMMIT) {
+            ativo.force(posicao, tamanhoRegistro);
+        }
+        return localizacao(numeroSegmentoAtivo, posicao);
+    }
+
+    private void abrirNovoSegmento(int numero) throws IOException {
+        if (segmentoAtivo != null) {
+            segmentoAtivo.force();
+        }
+        MappedByteBuffer novo;
+        try (FileChannel canal = FileChannel.open(arquivoSegmento(numero),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            novo = canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanhoSegmento);
+        }
+        segmentos.put(numero, novo);
+        segmentoAtivo = novo;
+        numeroSegmentoAtivo = numero;
+        posicaoEscrita = 0;
+    }
+
+    // Snapshot (se houver) e depois os segmentos posteriores a ele, em ordem
+    private void recuperar() throws IOException {
+        int primeiroSegmento = 1;
+        Path snapshot = diretorio.resolve(ARQUIVO_SNAPSHOT);
+        if (Files.exists(snapshot)) {
+            ByteBuffer dados = mapearSomenteLeitura(snapshot);
+            if (dados.getLong(0) != MAGICO_SNAPSHOT) {
+                throw new IOException("Snapshot de pedidos inválido: " + snapshot);
+            }
+            primeiroSegmento = dados.getInt(8);
+            sequenciaPedidos.set(dados.getLong(12));
+            sequenciaItens.set(dados.getLong(20));
+            int quantidade = dados.getInt(28);
+
+            segmentos.put(SEGMENTO_SNAPSHOT, dados);
+            int posicao = CABECALHO_SNAPSHOT;
+            for (int i = 0; i < quantidade; i++) {
+                int tamanho = lerRegistroValido(dados, posicao);
+                if (tamanho < 0) {
+                    throw new IOException("Snapshot de pedidos corrompido na posição " + posicao);
+                }
+                aplicar(dados, SEGMENTO_SNAPSHOT, posicao);
+                posicao += tamanho;
+            }
+        }
+        Files.deleteIfExists(diretorio.resolve(ARQUIVO_SNAPSHOT + ".tmp"));
+
+        List<Integer> numeros = new ArrayList<>();
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            arquivos.map(p -> p.getFileName().toString())
+                    .filter(n -> n.startsWith("segmento-") && n.endsWith(".log"))
+                    .map(n -> Integer.parseInt(n.substring("segmento-".length(), n.length() - ".log".length())))
+                    .forEach(numeros::add);
+        }
+        Collections.sort(numeros);
+
+        for (int numero : numeros) {
+            if (numero < primeiroSegmento) {
+                Files.deleteIfExists(arquivoSegmento(numero)); // já compactado, snapshot trocado antes da limpeza
+                continue;
+            }
+            abrirNovoSegmento(numero);
+            int posicao = 0;
+            int tamanho;
+            while ((tamanho = lerRegistroValido(segmentoAtivo, posicao)) > 0) {
+                aplicar(segmentoAtivo, numero, posicao);
+                posicao += tamanho;
+            }
+            // Descarta a cauda interrompida para que a próxima gravação comece limpa
+            for (int i = posicao; i < tamanhoSegmento && i < posicao + CABECALHO_REGISTRO; i++) {
+                segmentoAtivo.put(i, (byte) 0);
+            }
+            posicaoEscrita = posicao;
+        }
+        if (segmentoAtivo == null) {
+            abrirNovoSegmento(primeiroSegmento);
+        }
+    }
+
+    // Tamanho total do registro na posição, 0 no fim do log ou -1 se estiver corrompido
+    private int lerRegistroValido(ByteBuffer buffer, int posicao) {
+        if (posicao + CABECALHO_REGISTRO > buffer.limit()) {
+            return 0;
+        }
+        int tamanhoDados = buffer.getInt(posicao);
+        if (tamanhoDados == 0) {
+            return 0;
+        }
+        int tamanhoRegistro = CABECALHO_REGISTRO + tamanhoDados + RODAPE_REGISTRO;
+        if (tamanhoDados < 0 || posicao + tamanhoRegistro > buffer.limit()) {
+            return -1;
+        }
+        byte[] dados = new byte[tamanhoDados];
+        buffer.get(posicao + CABECALHO_REGISTRO, dados);
+        int esperado = buffer.getInt(posicao + CABECALHO_REGISTRO + tamanhoDados);
+        return crc(buffer.get(posicao + 4), dados) == esperado ? tamanhoRegistro : -1;
+    }
+
+    private void aplicar(ByteBuffer buffer, int segmento, int posicao) {
+        byte tipo = buffer.get(posicao + 4);
+        byte[] dados = new byte[buffer.getInt(posicao)];
+        buffer.get(posicao + CABECALHO_REGISTRO, dados);
+
+        if (tipo == TIPO_REMOVER) {
+            desindexar(ByteBuffer.wrap(dados).getLong());
+            return;
+        }
+        Pedido pedido = CodificadorPedido.decodificar(dados);
+        indexar(pedido.getId(), new Entrada(localizacao(segmento, posicao), pedido.getVersao(), pedido.getClienteId()));
+        sequenciaPedidos.accumulateAndGet(pedido.getId(), Math::max);
+        pedido.getItens().forEach(item -> sequenciaItens.accumulateAndGet(item.getId(), Math::max));
+    }
+
+    private void indexar(Long id, Entrada entrada) {
+        indice.put(id, entrada);
+        idsPorCliente.computeIfAbsent(entrada.clienteId(), c -> new ConcurrentSkipListSet<>()).add(id);
+    }
+
+    private void desindexar(Long id) {
+        Entrada removida = indice.remove(id);
+        if (removida != null) {
+            NavigableSet<Long> ids = idsPorCliente.get(removida.clienteId());
+            if (ids != null) {
+                ids.remove(id);
+            }
+        }
+    }
+
+    private Pedido lerPedido(long localizacao) {
+        return CodificadorPedido.decodificar(lerDados(localizacao));
+    }
+
+    private byte[] lerDados(long localizacao) {
+        ByteBuffer buffer = segmentos.get((int) (localizacao >>> 32));
+        int posicao = (int) localizacao;
+        byte[] dados = new byte[buffer.getInt(posicao)];
+        buffer.get(posicao + CABECALHO_REGISTRO, dados);
+        return dados;
+    }
+
+    private NavigableSet<Long> idsDoCliente(String clienteId) {
+        NavigableSet<Long> ids = idsPorCliente.get(clienteId);
+        return ids != null ? ids : Collections.emptyNavigableSet();
+    }
+
+    private Path arquivoSegmento(int numero) {
+        return diretorio.resolve(String.format("segmento-%08d.log", numero));
+    }
+
+    private static MappedByteBuffer mapearSomenteLeitura(Path arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            return canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        }
+    }
+
+    private static long localizacao(int segmento, int posicao) {
+        return ((long) segmento << 32) | (posicao & 0xFFFFFFFFL);
+    }
+
+    private static int crc(byte tipo, byte[] dados) {
+        CRC32 crc = new CRC32();
+        crc.update(tipo);
+        crc.update(dados);
+        return (int) crc.getValue();
+    }
+}
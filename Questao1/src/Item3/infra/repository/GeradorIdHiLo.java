@@ -0,0 +1,119 @@
+package Item3.infra.repository;
+
+import Item3.domain.GeradorId;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Gerador hi/lo: reserva blocos de tamanhoBloco ids com uma ida ao banco por bloco.
+ * O "hi" vem da tabela sequencias (nome, proximo_hi); o "lo" é contado em memória.
+ * Ids de blocos reservados e não usados (ex.: restart) são simplesmente pulados.
+ *
+ * Quem já tem uma conexão emprestada deve usar proximoId(Connection): a reserva roda nela,
+ * sem pedir uma segunda conexão ao pool (com o pool esgotado isso travaria até o timeout).
+ */
+public class GeradorIdHiLo implements GeradorId {
+    private final DataSource dataSource;
+    private final String nomeSequencia;
+    private final int tamanhoBloco;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private long proximo;
+    private long limite; // exclusivo
+
+    public GeradorIdHiLo(DataSource dataSource, String nomeSequencia, int tamanhoBloco) {
+        if (tamanhoBloco <= 0) {
+            throw new IllegalArgumentException("Tamanho do bloco deve ser maior que zero");
+        }
+        this.dataSource = dataSource;
+        this.nomeSequencia = nomeSequencia;
+        this.tamanhoBloco = tamanhoBloco;
+    }
+
+    // Reserva em conexão própria, obtida do DataSource; não use com outra conexão do mesmo pool emprestada
+    @Override
+    public long proximoId() {
+        lock.lock();
+        try {
+            if (proximo >= limite) {
+                try (Connection connection = dataSource.getConnection()) {
+                    iniciarBloco(reservarBloco(connection));
+                } catch (SQLException e) {
+                    throw erroReserva(e);
+                }
+            }
+            return proximo++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     * Reserva, se preciso, na conexão do chamador, numa transação curta e própria. A conexão
+     * não pode ter transação em andamento (ex.: logo após getConnection() ou commit()); o
+     * modo de autocommit dela é restaurado no fim.
+     */
+    public long proximoId(Connection connection) {
+        lock.lock();
+        try {
+            if (proximo >= limite) {
+                try {
+                    iniciarBloco(reservarBloco(connection));
+                } catch (SQLException e) {
+                    throw erroReserva(e);
+                }
+            }
+            return proximo++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void iniciarBloco(long hi) {
+        proximo = hi * tamanhoBloco + 1; // ids começam em 1
+        limite = proximo + tamanhoBloco;
+    }
+
+    // Transação própria: o bloco fica reservado mesmo se a transação do chamador falhar depois
+    private long reservarBloco(Connection connection) throws SQLException {
+        String update = "UPDATE sequencias SET proximo_hi = proximo_hi + 1 WHERE nome = ?";
+        String select = "SELECT proximo_hi FROM sequencias WHERE nome = ?";
+
+        boolean autoCommit = connection.getAutoCommit();
+        try {
+            connection.setAutoCommit(false);
+
+            try (PreparedStatement stmt = connection.prepareStatement(update)) {
+                stmt.setString(1, nomeSequencia);
+                if (stmt.executeUpdate() == 0) {
+                    throw new SQLException("Sequência não cadastrada: " + nomeSequencia);
+                }
+            }
+
+            long hi;
+            try (PreparedStatement stmt = connection.prepareStatement(select)) {
+                stmt.setString(1, nomeSequencia);
+                ResultSet rs = stmt.executeQuery();
+                rs.next();
+                hi = rs.getLong(1) - 1; // valor antes do incremento
+            }
+
+            connection.commit();
+            return hi;
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private RuntimeException erroReserva(SQLException e) {
+        return new RuntimeException("Erro ao reservar bloco de ids da sequência " + nomeSequencia, e);
+    }
+}
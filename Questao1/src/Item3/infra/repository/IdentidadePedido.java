@@ -0,0 +1,45 @@
+package Item3.infra.repository;
+
+import Item3.domain.Pedido;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+
+/*
+ * Atribui a identidade gerada na gravação usando REFLEXÃO: getDeclaredMethod("setId"),
+ * setAccessible(true) e um MethodHandle guardado. O setId de Pedido é package-private em
+ * Item3.domain e Java não permite que Item3.infra.repository o chame sem torná-lo público.
+ * É a mesma reflexão mínima, só para o id, que o repositório original usava (copiarDados).
+ * O preço é que uma renomeação de setId só falha em tempo de execução, na carga desta classe.
+ * Usado pelos repositórios Jdbc, File e InMemory.
+ */
+final class IdentidadePedido {
+    private static final MethodHandle SET_ID;
+
+    static {
+        try {
+            Method setId = Pedido.class.getDeclaredMethod("setId", Long.class);
+            setId.setAccessible(true);
+            SET_ID = MethodHandles.lookup().unreflect(setId);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private IdentidadePedido() {}
+
+    // Uma única vez por agregado, depois que a gravação foi confirmada
+    static void atribuir(Pedido pedido, long id) {
+        if (pedido.getId() != null) {
+            throw new IllegalStateException("Pedido já possui id " + pedido.getId());
+        }
+        try {
+            SET_ID.invokeExact(pedido, Long.valueOf(id));
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Erro ao atribuir id ao pedido", e);
+        }
+    }
+}
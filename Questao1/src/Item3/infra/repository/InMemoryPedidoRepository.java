@@ -0,0 +1,153 @@
+package Item3.infra.repository;
+
+import Item3.domain.Pedido;
+import Item3.domain.repository.ConflitoConcorrenciaException;
+import Item3.domain.repository.PedidoRepository;
+import Item3.domain.repository.ResultadoLote;
+import Item3.domain.repository.ResumoPedido;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Implementação em memória e thread-safe, para nós de borda e testes de carga.
+ * Mesma semântica do JdbcPedidoRepository: ids gerados, versão otimista, salvar atômico
+ * por agregado. Guarda e devolve cópias, então nenhum chamador compartilha instâncias.
+ */
+public class InMemoryPedidoRepository implements PedidoRepository {
+    private final ConcurrentHashMap<Long, Pedido> pedidos = new ConcurrentHashMap<>();
+    // Índice secundário: ids ordenados por cliente (também serve à paginação por chave)
+    private final ConcurrentHashMap<String, NavigableSet<Long>> idsPorCliente = new ConcurrentHashMap<>();
+    private final AtomicLong sequenciaPedidos = new AtomicLong();
+    private final AtomicLong sequenciaItens = new AtomicLong();
+
+    @Override
+    public void salvar(Pedido pedido) {
+        int itensNovos = pedido.getItensAdicionados().size();
+        List<Long> idsItens = new ArrayList<>(itensNovos);
+        for (int i = 0; i < itensNovos; i++) {
+            idsItens.add(sequenciaItens.incrementAndGet());
+        }
+
+        if (pedido.getId() == null) {
+            long novoId = sequenciaPedidos.incrementAndGet();
+            Pedido gravado = pedido.copia();
+            IdentidadePedido.atribuir(gravado, novoId);
+            gravado.marcarComoSalvo(pedido.getVersao(), idsItens);
+
+            pedidos.put(novoId, gravado);
+            idsPorCliente.computeIfAbsent(pedido.getClienteId(), c -> new ConcurrentSkipListSet<>()).add(novoId);
+
+            // Só depois de gravado o agregado do chamador recebe id e estado salvo
+            IdentidadePedido.atribuir(pedido, novoId);
+            pedido.marcarComoSalvo(pedido.getVersao(), idsItens);
+            return;
+        }
+
+        // compute é atômico por chave: checagem de versão e troca acontecem juntas
+        long novaVersao = pedido.getVersao() + 1;
+        pedidos.compute(pedido.getId(), (id, atual) -> {
+            if (atual == null || atual.getVersao() != pedido.getVersao()) {
+                throw new ConflitoConcorrenciaException(id, pedido.getVersao());
+            }
+            Pedido gravado = pedido.copia();
+            gravado.marcarComoSalvo(novaVersao, idsItens);
+            return gravado;
+        });
+        pedido.marcarComoSalvo(novaVersao, idsItens);
+    }
+
+    // Cada agregado é atômico; não há transação envolvendo o lote inteiro
+    @Override
+    public ResultadoLote salvarTodos(Collection<Pedido> lote) {
+        long inicio = System.nanoTime();
+        int salvos = 0;
+        for (Pedido pedido : lote) {
+            salvar(pedido);
+            salvos++;
+        }
+        return new ResultadoLote(salvos, Duration.ofNanos(System.nanoTime() - inicio));
+    }
+
+    @Override
+    public Optional<Pedido> buscarPorId(Long id) {
+        return Optional.ofNullable(pedidos.get(id)).map(Pedido::copia);
+    }
+
+    @Override
+    public List<Pedido> buscarPorCliente(String clienteId) {
+        List<Pedido> encontrados = new ArrayList<>();
+        for (Long id : idsDoCliente(clienteId)) {
+            Pedido pedido = pedidos.get(id);
+            if (pedido != null) {
+                encontrados.add(pedido.copia());
+            }
+        }
+        return encontrados;
+    }
+
+    @Override
+    public List<Pedido> buscarPorCliente(String clienteId, Long aposId, int limite) {
+        NavigableSet<Long> ids = idsDoCliente(clienteId);
+        NavigableSet<Long> seguintes = aposId == null ? ids : ids.tailSet(aposId, false);
+
+        List<Pedido> pagina = new ArrayList<>(limite);
+        for (Long id : seguintes) {
+            if (pagina.size() >= limite) {
+                break;
+            }
+            Pedido pedido = pedidos.get(id);
+            if (pedido != null) {
+                pagina.add(pedido.copia());
+            }
+        }
+        return pagina;
+    }
+
+    @Override
+    public Stream<Pedido> streamPorCliente(String clienteId) {
+        return idsDoCliente(clienteId).stream()
+                .map(pedidos::get)
+                .filter(Objects::nonNull)
+                .map(Pedido::copia);
+    }
+
+    @Override
+    public List<ResumoPedido> resumosPorCliente(String clienteId) {
+        List<ResumoPedido> resumos = new ArrayList<>();
+        for (Long id : idsDoCliente(clienteId)) {
+            Pedido pedido = pedidos.get(id);
+            if (pedido != null) {
+                resumos.add(new ResumoPedido(pedido.getId(), pedido.getStatus(),
+                        pedido.getValorTotal(), pedido.getDataCriacao()));
+            }
+        }
+        return resumos;
+    }
+
+    @Override
+    public void remover(Pedido pedido) {
+        Pedido removido = pedidos.remove(pedido.getId());
+        if (removido != null) {
+            NavigableSet<Long> ids = idsPorCliente.get(removido.getClienteId());
+            if (ids != null) {
+                ids.remove(removido.getId());
+            }
+        }
+    }
+
+    private NavigableSet<Long> idsDoCliente(String clienteId) {
+        NavigableSet<Long> ids = idsPorCliente.get(clienteId);
+        return ids != null ? ids : Collections.emptyNavigableSet();
+    }
+}
@@ -0,0 +1,84 @@
+package Item3.infra.repository;
+
+import Item3.domain.Pedido;
+import Item3.domain.repository.PedidoRepository;
+import Item3.domain.repository.ResultadoLote;
+import Item3.domain.repository.ResumoPedido;
+import infra.metrics.MetricasOperacao;
+import infra.metrics.RegistroMetricas;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Decorator que mede cada método do repositório: chamadas, erros, latência (p50/p99/p999)
+ * e linhas retornadas. Os números ficam no RegistroMetricas informado.
+ */
+public class InstrumentedPedidoRepository implements PedidoRepository {
+    private final PedidoRepository delegate;
+
+    private final MetricasOperacao salvar;
+    private final MetricasOperacao salvarTodos;
+    private final MetricasOperacao buscarPorId;
+    private final MetricasOperacao buscarPorCliente;
+    private final MetricasOperacao buscarPaginaPorCliente;
+    private final MetricasOperacao streamPorCliente;
+    private final MetricasOperacao resumosPorCliente;
+    private final MetricasOperacao remover;
+
+    public InstrumentedPedidoRepository(PedidoRepository delegate, RegistroMetricas registro) {
+        this.delegate = delegate;
+        this.salvar = registro.operacao("PedidoRepository.salvar");
+        this.salvarTodos = registro.operacao("PedidoRepository.salvarTodos");
+        this.buscarPorId = registro.operacao("PedidoRepository.buscarPorId");
+        this.buscarPorCliente = registro.operacao("PedidoRepository.buscarPorCliente");
+        this.buscarPaginaPorCliente = registro.operacao("PedidoRepository.buscarPorCliente(pagina)");
+        this.streamPorCliente = registro.operacao("PedidoRepository.streamPorCliente");
+        this.resumosPorCliente = registro.operacao("PedidoRepository.resumosPorCliente");
+        this.remover = registro.operacao("PedidoRepository.remover");
+    }
+
+    @Override
+    public void salvar(Pedido pedido) {
+        salvar.medir(() -> delegate.salvar(pedido));
+    }
+
+    @Override
+    public ResultadoLote salvarTodos(Collection<Pedido> pedidos) {
+        return salvarTodos.medir(() -> delegate.salvarTodos(pedidos), ResultadoLote::getPedidosSalvos);
+    }
+
+    @Override
+    public Optional<Pedido> buscarPorId(Long id) {
+        return buscarPorId.medir(() -> delegate.buscarPorId(id), p -> p.isPresent() ? 1 : 0);
+    }
+
+    @Override
+    public List<Pedido> buscarPorCliente(String clienteId) {
+        return buscarPorCliente.medir(() -> delegate.buscarPorCliente(clienteId), List::size);
+    }
+
+    @Override
+    public List<Pedido> buscarPorCliente(String clienteId, Long aposId, int limite) {
+        return buscarPaginaPorCliente.medir(() -> delegate.buscarPorCliente(clienteId, aposId, limite), List::size);
+    }
+
+    // A latência medida é a de abertura; as linhas são contadas conforme o Stream é consumido
+    @Override
+    public Stream<Pedido> streamPorCliente(String clienteId) {
+        return streamPorCliente.medir(() -> delegate.streamPorCliente(clienteId), s -> 0)
+                .peek(p -> streamPorCliente.adicionarLinhas(1));
+    }
+
+    @Override
+    public List<ResumoPedido> resumosPorCliente(String clienteId) {
+        return resumosPorCliente.medir(() -> delegate.resumosPorCliente(clienteId), List::size);
+    }
+
+    @Override
+    public void remover(Pedido pedido) {
+        remover.medir(() -> delegate.remover(pedido));
+    }
+}
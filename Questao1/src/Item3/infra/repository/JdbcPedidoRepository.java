@@ -1,47 +1,112 @@
 package Item3.infra.repository;
 
+import Item3.domain.GeradorId;
 import Item3.domain.ItemPedido;
 import Item3.domain.Pedido;
 import Item3.domain.StatusPedido;
+import Item3.domain.repository.ConflitoConcorrenciaException;
 import Item3.domain.repository.PedidoRepository;
+import Item3.domain.repository.ResultadoLote;
+import Item3.domain.repository.ResumoPedido;
 
+import javax.sql.DataSource;
 import java.math.BigDecimal;
 import java.sql.*;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class JdbcPedidoRepository implements PedidoRepository {
-    private Connection connection;
+    // Limite de parâmetros por consulta "IN (...)" ao carregar itens em lote (potência de 2)
+    private static final int TAMANHO_BLOCO_IN = 512;
+    // Quantos agregados são confirmados por commit em salvarTodos
+    private static final int TAMANHO_LOTE_PADRAO = 1000;
+    // Linhas buscadas por ida ao banco no streamPorCliente (também é o tamanho do lote de itens)
+    private static final int TAMANHO_FETCH = 256;
+
+    // Cada operação pega sua própria conexão (ex.: infra.pool.PoolConexoes): seguro entre threads
+    private final DataSource dataSource;
+    private final int tamanhoLote;
+    // Com gerador os ids são definidos antes do INSERT; sem ele, vêm de RETURN_GENERATED_KEYS
+    private final GeradorId geradorId;
+
+    public JdbcPedidoRepository(DataSource dataSource) {
+        this(dataSource, TAMANHO_LOTE_PADRAO);
+    }
+
+    public JdbcPedidoRepository(DataSource dataSource, int tamanhoLote) {
+        this(dataSource, tamanhoLote, null);
+    }
 
-    public JdbcPedidoRepository(Connection connection) {
-        this.connection = connection;
+    public JdbcPedidoRepository(DataSource dataSource, int tamanhoLote, GeradorId geradorId) {
+        if (tamanhoLote <= 0) {
+            throw new IllegalArgumentException("Tamanho do lote deve ser maior que zero");
+        }
+        this.dataSource = dataSource;
+        this.tamanhoLote = tamanhoLote;
+        this.geradorId = geradorId;
     }
 
     @Override
     public void salvar(Pedido pedido) {
-        try {
-            connection.setAutoCommit(false); // Transação para manter consistência
+        try (Connection connection = dataSource.getConnection()) {
+            try {
+                connection.setAutoCommit(false); // Transação para manter consistência
 
-            if (pedido.getId() == null) {
-                inserirPedido(pedido);
-            } else {
-                atualizarPedido(pedido);
+                Runnable aposCommit = gravarBloco(connection, List.of(pedido));
+
+                connection.commit(); // Agregado salvo como unidade
+                aposCommit.run();
+            } catch (SQLException | RuntimeException e) {
+                desfazer(connection);
+                throw e;
             }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao salvar pedido", e);
+        }
+    }
 
-            // Salva todos os itens do agregado
-            salvarItens(pedido);
+    @Override
+    public ResultadoLote salvarTodos(Collection<Pedido> pedidos) {
+        long inicio = System.nanoTime();
+        List<Pedido> todos = new ArrayList<>(pedidos);
+        int salvos = 0;
 
-            connection.commit(); // Agregado salvo como unidade
-        } catch (SQLException e) {
+        try (Connection connection = dataSource.getConnection()) {
             try {
-                connection.rollback();
-            } catch (SQLException rollbackEx) {
-                throw new RuntimeException("Erro no rollback", rollbackEx);
+                connection.setAutoCommit(false);
+
+                // Cada bloco de tamanhoLote agregados vira um conjunto de batches e um commit
+                for (int i = 0; i < todos.size(); i += tamanhoLote) {
+                    List<Pedido> bloco = todos.subList(i, Math.min(i + tamanhoLote, todos.size()));
+
+                    Runnable aposCommit = gravarBloco(connection, bloco);
+
+                    connection.commit();
+                    aposCommit.run();
+                    salvos += bloco.size();
+                }
+            } catch (SQLException | RuntimeException e) {
+                desfazer(connection);
+                throw e;
             }
-            throw new RuntimeException("Erro ao salvar pedido", e);
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao salvar lote de pedidos (" + salvos + " já confirmados)", e);
         }
+
+        return new ResultadoLote(salvos, Duration.ofNanos(System.nanoTime() - inicio));
     }
 
     @Override
@@ -50,7 +115,8 @@ public class JdbcPedidoRepository implements PedidoRepository {
         String sqlPedido = "SELECT * FROM pedidos WHERE id = ?";
         String sqlItens = "SELECT * FROM itens_pedido WHERE pedido_id = ?";
 
-        try (PreparedStatement stmtPedido = connection.prepareStatement(sqlPedido);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmtPedido = connection.prepareStatement(sqlPedido);
              PreparedStatement stmtItens = connection.prepareStatement(sqlItens)) {
 
             stmtPedido.setLong(1, id);
@@ -80,6 +146,7 @@ public class JdbcPedidoRepository implements PedidoRepository {
                     pedido.getStatus(),
                     pedido.getValorTotal(),
                     pedido.getDataCriacao(),
+                    pedido.getVersao(),
                     itens
             );
 
@@ -93,150 +160,440 @@ public class JdbcPedidoRepository implements PedidoRepository {
     @Override
     public List<Pedido> buscarPorCliente(String clienteId) {
         String sql = "SELECT * FROM pedidos WHERE cliente_id = ?";
-        List<Pedido> pedidos = new ArrayList<>();
+        List<Pedido> cabecalhos = new ArrayList<>();
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, clienteId);
             ResultSet rs = stmt.executeQuery();
 
             while (rs.next()) {
-                Pedido pedido = mapearPedido(rs);
-
-                // Para cada pedido, busca seus itens
-                List<ItemPedido> itens = buscarItensDoPedido(pedido.getId());
-
-                // Reconstrói com itens
-                pedido = Pedido.restaurarComItens(
-                        pedido.getId(),
-                        pedido.getClienteId(),
-                        pedido.getStatus(),
-                        pedido.getValorTotal(),
-                        pedido.getDataCriacao(),
-                        itens
-                );
-
-                pedidos.add(pedido);
+                cabecalhos.add(mapearPedido(rs));
             }
 
+            // Carrega os itens de todos os pedidos em lote (evita N+1 consultas)
+            return restaurarComItens(connection, cabecalhos);
+
         } catch (SQLException e) {
             throw new RuntimeException("Erro ao buscar pedidos por cliente", e);
         }
-
-        return pedidos;
     }
 
     @Override
-    public void remover(Pedido pedido) {
-        try {
-            connection.setAutoCommit(false);
+    public List<Pedido> buscarPorCliente(String clienteId, Long aposId, int limite) {
+        // Keyset: usa o índice (cliente_id, id) em vez de OFFSET, custo constante por página
+        if (limite < 0) {
+            throw new IllegalArgumentException("Limite da página não pode ser negativo: " + limite);
+        }
+        String sql = "SELECT * FROM pedidos WHERE cliente_id = ? AND id > ? ORDER BY id LIMIT ?";
+        List<Pedido> cabecalhos = new ArrayList<>(Math.min(limite, TAMANHO_FETCH));
 
-            // Remove itens primeiro (FK constraint)
-            String deleteItens = "DELETE FROM itens_pedido WHERE pedido_id = ?";
-            try (PreparedStatement stmt = connection.prepareStatement(deleteItens)) {
-                stmt.setLong(1, pedido.getId());
-                stmt.executeUpdate();
-            }
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, clienteId);
+            stmt.setLong(2, aposId == null ? 0L : aposId);
+            stmt.setInt(3, limite);
+            ResultSet rs = stmt.executeQuery();
 
-            // Remove o pedido
-            String deletePedido = "DELETE FROM pedidos WHERE id = ?";
-            try (PreparedStatement stmt = connection.prepareStatement(deletePedido)) {
-                stmt.setLong(1, pedido.getId());
-                stmt.executeUpdate();
+            while (rs.next()) {
+                cabecalhos.add(mapearPedido(rs));
             }
 
-            connection.commit();
+            return restaurarComItens(connection, cabecalhos);
+
         } catch (SQLException e) {
+            throw new RuntimeException("Erro ao buscar página de pedidos por cliente", e);
+        }
+    }
+
+    /*
+     * Páginas por chave de TAMANHO_FETCH pedidos, cada uma com buscarPorCliente(clienteId,
+     * aposId, limite): cabeçalhos lidos por inteiro e fechados antes da consulta de itens, e
+     * conexão devolvida ao fim de cada página. Nenhum cursor fica aberto enquanto outra
+     * consulta roda (drivers com result set em streaming, como o do MySQL, não aceitam isso)
+     * e nenhuma configuração da conexão precisa ser restaurada.
+     */
+    @Override
+    public Stream<Pedido> streamPorCliente(String clienteId) {
+        return StreamSupport.stream(new PaginasPedidos(clienteId), false);
+    }
+
+    @Override
+    public List<ResumoPedido> resumosPorCliente(String clienteId) {
+        // Só as colunas exibidas na listagem; itens_pedido não é consultado
+        String sql = "SELECT id, status, valor_total, data_criacao FROM pedidos WHERE cliente_id = ? ORDER BY id";
+        List<ResumoPedido> resumos = new ArrayList<>();
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, clienteId);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                resumos.add(new ResumoPedido(
+                        rs.getLong(1),
+                        StatusPedido.valueOf(rs.getString(2)),
+                        rs.getBigDecimal(3),
+                        rs.getTimestamp(4).toLocalDateTime()
+                ));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao buscar resumos de pedidos por cliente", e);
+        }
+
+        return resumos;
+    }
+
+    @Override
+    public void remover(Pedido pedido) {
+        try (Connection connection = dataSource.getConnection()) {
             try {
-                connection.rollback();
-            } catch (SQLException rollbackEx) {
-                throw new RuntimeException("Erro no rollback", rollbackEx);
+                connection.setAutoCommit(false);
+
+                // Remove itens primeiro (FK constraint)
+                String deleteItens = "DELETE FROM itens_pedido WHERE pedido_id = ?";
+                try (PreparedStatement stmt = connection.prepareStatement(deleteItens)) {
+                    stmt.setLong(1, pedido.getId());
+                    stmt.executeUpdate();
+                }
+
+                // Remove o pedido
+                String deletePedido = "DELETE FROM pedidos WHERE id = ?";
+                try (PreparedStatement stmt = connection.prepareStatement(deletePedido)) {
+                    stmt.setLong(1, pedido.getId());
+                    stmt.executeUpdate();
+                }
+
+                connection.commit();
+            } catch (SQLException e) {
+                desfazer(connection);
+                throw e;
             }
+        } catch (SQLException e) {
             throw new RuntimeException("Erro ao remover pedido", e);
         }
     }
 
-    private void inserirPedido(Pedido pedido) throws SQLException {
-        String sql = "INSERT INTO pedidos (cliente_id, status, valor_total, data_criacao) VALUES (?, ?, ?, ?)";
+    // Grava um bloco de agregados na transação corrente. Ids e versões só são aplicados aos
+    // agregados pela ação devolvida, executada após o commit (um rollback não os deixa sujos).
+    private Runnable gravarBloco(Connection connection, List<Pedido> bloco) throws SQLException {
+        List<Pedido> novos = new ArrayList<>();
+        List<Pedido> existentes = new ArrayList<>();
+        long[] versoesGravadas = new long[bloco.size()];
+        for (int j = 0; j < bloco.size(); j++) {
+            Pedido pedido = bloco.get(j);
+            versoesGravadas[j] = versaoAposSalvar(pedido);
+            (pedido.getId() == null ? novos : existentes).add(pedido);
+        }
+
+        List<Long> idsNovos = inserirPedidos(connection, novos);
+        atualizarPedidos(connection, existentes);
+
+        List<Long> idsPedidos = new ArrayList<>(bloco.size());
+        int proximoNovo = 0;
+        for (Pedido pedido : bloco) {
+            idsPedidos.add(pedido.getId() != null ? pedido.getId() : idsNovos.get(proximoNovo++));
+        }
+
+        // Grava apenas os itens adicionados, alterados ou removidos
+        List<List<Long>> idsItensInseridos = salvarItens(connection, bloco, idsPedidos);
+
+        return () -> {
+            for (int j = 0; j < bloco.size(); j++) {
+                Pedido pedido = bloco.get(j);
+                if (pedido.getId() == null) {
+                    long novoId = idsPedidos.get(j);
+                    IdentidadePedido.atribuir(pedido, novoId);
+                }
+                pedido.marcarComoSalvo(versoesGravadas[j], idsItensInseridos.get(j));
+            }
+        };
+    }
+
+    // Insere os cabeçalhos em um batch e devolve os ids na ordem recebida
+    private List<Long> inserirPedidos(Connection connection, List<Pedido> pedidos) throws SQLException {
+        List<Long> ids = new ArrayList<>(pedidos.size());
+        if (pedidos.isEmpty()) {
+            return ids;
+        }
+
+        if (geradorId != null) {
+            // Ids reservados no cliente, antes de qualquer escrita da transação: sem ida extra
+            // para buscar chaves geradas
+            for (int i = 0; i < pedidos.size(); i++) {
+                ids.add(proximoId(connection));
+            }
+            String sql = "INSERT INTO pedidos (id, cliente_id, status, valor_total, data_criacao, versao) VALUES (?, ?, ?, ?, ?, ?)";
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                for (int i = 0; i < pedidos.size(); i++) {
+                    Pedido pedido = pedidos.get(i);
+                    stmt.setLong(1, ids.get(i));
+                    stmt.setString(2, pedido.getClienteId());
+                    stmt.setString(3, pedido.getStatus().name());
+                    stmt.setBigDecimal(4, pedido.getValorTotal());
+                    stmt.setTimestamp(5, Timestamp.valueOf(pedido.getDataCriacao()));
+                    stmt.setLong(6, pedido.getVersao());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+            return ids;
+        }
+
+        String sql = "INSERT INTO pedidos (cliente_id, status, valor_total, data_criacao, versao) VALUES (?, ?, ?, ?, ?)";
         try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            stmt.setString(1, pedido.getClienteId());
-            stmt.setString(2, pedido.getStatus().name());
-            stmt.setBigDecimal(3, pedido.getValorTotal());
-            stmt.setTimestamp(4, Timestamp.valueOf(pedido.getDataCriacao()));
+            for (Pedido pedido : pedidos) {
+                stmt.setString(1, pedido.getClienteId());
+                stmt.setString(2, pedido.getStatus().name());
+                stmt.setBigDecimal(3, pedido.getValorTotal());
+                stmt.setTimestamp(4, Timestamp.valueOf(pedido.getDataCriacao()));
+                stmt.setLong(5, pedido.getVersao());
+                stmt.addBatch();
+            }
 
-            stmt.executeUpdate();
+            stmt.executeBatch();
 
+            // As chaves geradas voltam na mesma ordem do batch
             ResultSet rs = stmt.getGeneratedKeys();
-            if (rs.next()) {
-                Long novoId = rs.getLong(1);
-
-                // ✅ Usando factory method para criar nova instância com ID
-                // Substitui o pedido atual por uma nova instância com ID
-                Pedido pedidoComId = Pedido.restaurarComItens(
-                        novoId,
-                        pedido.getClienteId(),
-                        pedido.getStatus(),
-                        pedido.getValorTotal(),
-                        pedido.getDataCriacao(),
-                        pedido.getItens()
-                );
-
-                // Copia os dados de volta (alternativa: retornar o novo pedido)
-                // Aqui assumimos que existe um método para isso ou usamos reflection mínima
-                copiarDados(pedidoComId, pedido);
+            for (Pedido pedido : pedidos) {
+                if (!rs.next()) {
+                    throw new SQLException("Chave gerada ausente para o pedido do cliente " + pedido.getClienteId());
+                }
+                ids.add(rs.getLong(1));
             }
         }
+        return ids;
+    }
+
+    // O hi/lo reserva blocos na conexão já emprestada: pedir outra ao pool aqui travaria com o pool cheio
+    private long proximoId(Connection connection) {
+        if (geradorId instanceof GeradorIdHiLo hiLo) {
+            return hiLo.proximoId(connection);
+        }
+        return geradorId.proximoId();
     }
 
-    private void atualizarPedido(Pedido pedido) throws SQLException {
-        String sql = "UPDATE pedidos SET cliente_id = ?, status = ?, valor_total = ?, data_criacao = ? WHERE id = ?";
+    private void atualizarPedidos(Connection connection, List<Pedido> pedidos) throws SQLException {
+        if (pedidos.isEmpty()) {
+            return;
+        }
+
+        // Concorrência otimista: só atualiza se ninguém gravou desde a leitura
+        String sql = "UPDATE pedidos SET cliente_id = ?, status = ?, valor_total = ?, data_criacao = ?, versao = versao + 1"
+                + " WHERE id = ? AND versao = ?";
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, pedido.getClienteId());
-            stmt.setString(2, pedido.getStatus().name());
-            stmt.setBigDecimal(3, pedido.getValorTotal());
-            stmt.setTimestamp(4, Timestamp.valueOf(pedido.getDataCriacao()));
-            stmt.setLong(5, pedido.getId());
+            for (Pedido pedido : pedidos) {
+                stmt.setString(1, pedido.getClienteId());
+                stmt.setString(2, pedido.getStatus().name());
+                stmt.setBigDecimal(3, pedido.getValorTotal());
+                stmt.setTimestamp(4, Timestamp.valueOf(pedido.getDataCriacao()));
+                stmt.setLong(5, pedido.getId());
+                stmt.setLong(6, pedido.getVersao());
+                stmt.addBatch();
+            }
 
-            stmt.executeUpdate();
+            // Cada UPDATE tem que informar exatamente 1 linha; sem a contagem a versão não é verificada
+            int[] atualizados = stmt.executeBatch();
+            if (atualizados.length != pedidos.size()) {
+                throw new SQLException("Driver devolveu " + atualizados.length + " contagens para "
+                        + pedidos.size() + " atualizações de pedidos");
+            }
+            for (int i = 0; i < atualizados.length; i++) {
+                Pedido pedido = pedidos.get(i);
+                if (atualizados[i] == 0) {
+                    throw new ConflitoConcorrenciaException(pedido.getId(), pedido.getVersao());
+                }
+                if (atualizados[i] == Statement.SUCCESS_NO_INFO) {
+                    throw new SQLException("Driver não informou as linhas atualizadas; a versão do pedido "
+                            + pedido.getId() + " não pode ser verificada");
+                }
+                if (atualizados[i] != 1) {
+                    throw new SQLException("Atualização do pedido " + pedido.getId() + " afetou "
+                            + atualizados[i] + " linhas");
+                }
+            }
         }
     }
 
-    private void salvarItens(Pedido pedido) throws SQLException {
-        // Remove itens antigos
-        String deleteSql = "DELETE FROM itens_pedido WHERE pedido_id = ?";
-        try (PreparedStatement deleteStmt = connection.prepareStatement(deleteSql)) {
-            deleteStmt.setLong(1, pedido.getId());
-            deleteStmt.executeUpdate();
+    // Grava as alterações de itens de vários agregados com um batch por tipo de comando.
+    // Devolve, para cada pedido (na ordem recebida), os ids gerados para seus itens novos.
+    private List<List<Long>> salvarItens(Connection connection, List<Pedido> pedidos, List<Long> idsPedidos) throws SQLException {
+        // Remove só os itens retirados dos agregados
+        List<Long> idsRemovidos = new ArrayList<>();
+        for (Pedido pedido : pedidos) {
+            idsRemovidos.addAll(pedido.getIdsItensRemovidos());
+        }
+        if (!idsRemovidos.isEmpty()) {
+            String deleteSql = "DELETE FROM itens_pedido WHERE id = ?";
+            try (PreparedStatement deleteStmt = connection.prepareStatement(deleteSql)) {
+                for (Long itemId : idsRemovidos) {
+                    deleteStmt.setLong(1, itemId);
+                    deleteStmt.addBatch();
+                }
+                deleteStmt.executeBatch();
+            }
+        }
+
+        // Atualiza só os itens com quantidade alterada
+        List<ItemPedido> alterados = new ArrayList<>();
+        for (Pedido pedido : pedidos) {
+            alterados.addAll(pedido.getItensAlterados());
+        }
+        if (!alterados.isEmpty()) {
+            String updateSql = "UPDATE itens_pedido SET quantidade = ?, subtotal = ? WHERE id = ?";
+            try (PreparedStatement updateStmt = connection.prepareStatement(updateSql)) {
+                for (ItemPedido item : alterados) {
+                    updateStmt.setInt(1, item.getQuantidade());
+                    updateStmt.setBigDecimal(2, item.getSubtotal());
+                    updateStmt.setLong(3, item.getId());
+                    updateStmt.addBatch();
+                }
+                updateStmt.executeBatch();
+            }
+        }
+
+        // Insere só os itens novos; as chaves geradas são redistribuídas por pedido
+        List<List<ItemPedido>> adicionadosPorPedido = new ArrayList<>(pedidos.size());
+        int totalAdicionados = 0;
+        for (Pedido pedido : pedidos) {
+            List<ItemPedido> adicionados = pedido.getItensAdicionados();
+            adicionadosPorPedido.add(adicionados);
+            totalAdicionados += adicionados.size();
+        }
+
+        List<List<Long>> idsPorPedido = new ArrayList<>(pedidos.size());
+        if (totalAdicionados == 0) {
+            for (int i = 0; i < pedidos.size(); i++) {
+                idsPorPedido.add(Collections.emptyList());
+            }
+            return idsPorPedido;
         }
 
-        // Insere itens atuais
         String insertSql = "INSERT INTO itens_pedido (pedido_id, produto_id, quantidade, preco_unitario, subtotal) VALUES (?, ?, ?, ?, ?)";
-        try (PreparedStatement insertStmt = connection.prepareStatement(insertSql)) {
-            for (ItemPedido item : pedido.getItens()) {
-                insertStmt.setLong(1, pedido.getId());
-                insertStmt.setString(2, item.getProdutoId());
-                insertStmt.setInt(3, item.getQuantidade());
-                insertStmt.setBigDecimal(4, item.getPrecoUnitario());
-                insertStmt.setBigDecimal(5, item.getSubtotal());
-                insertStmt.addBatch();
+        try (PreparedStatement insertStmt = connection.prepareStatement(insertSql, Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < pedidos.size(); i++) {
+                for (ItemPedido item : adicionadosPorPedido.get(i)) {
+                    insertStmt.setLong(1, idsPedidos.get(i));
+                    insertStmt.setString(2, item.getProdutoId());
+                    insertStmt.setInt(3, item.getQuantidade());
+                    insertStmt.setBigDecimal(4, item.getPrecoUnitario());
+                    insertStmt.setBigDecimal(5, item.getSubtotal());
+                    insertStmt.addBatch();
+                }
             }
             insertStmt.executeBatch();
+
+            ResultSet rs = insertStmt.getGeneratedKeys();
+            for (List<ItemPedido> adicionados : adicionadosPorPedido) {
+                List<Long> ids = new ArrayList<>(adicionados.size());
+                for (int j = 0; j < adicionados.size(); j++) {
+                    if (!rs.next()) {
+                        throw new SQLException("Chaves geradas insuficientes para os itens inseridos");
+                    }
+                    ids.add(rs.getLong(1));
+                }
+                idsPorPedido.add(ids);
+            }
         }
+
+        return idsPorPedido;
     }
 
-    private List<ItemPedido> buscarItensDoPedido(Long pedidoId) throws SQLException {
-        String sql = "SELECT * FROM itens_pedido WHERE pedido_id = ?";
-        List<ItemPedido> itens = new ArrayList<>();
+    // Reconstrói os agregados a partir dos cabeçalhos, buscando os itens em consultas por lote
+    private List<Pedido> restaurarComItens(Connection connection, List<Pedido> cabecalhos) throws SQLException {
+        List<Long> ids = new ArrayList<>(cabecalhos.size());
+        for (Pedido cabecalho : cabecalhos) {
+            ids.add(cabecalho.getId());
+        }
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setLong(1, pedidoId);
-            ResultSet rs = stmt.executeQuery();
+        Map<Long, List<ItemPedido>> itensPorPedido = buscarItensDosPedidos(connection, ids);
+
+        List<Pedido> pedidos = new ArrayList<>(cabecalhos.size());
+        for (Pedido cabecalho : cabecalhos) {
+            pedidos.add(Pedido.restaurarComItens(
+                    cabecalho.getId(),
+                    cabecalho.getClienteId(),
+                    cabecalho.getStatus(),
+                    cabecalho.getValorTotal(),
+                    cabecalho.getDataCriacao(),
+                    cabecalho.getVersao(),
+                    itensPorPedido.getOrDefault(cabecalho.getId(), Collections.emptyList())
+            ));
+        }
+        return pedidos;
+    }
 
-            while (rs.next()) {
-                itens.add(mapearItem(rs));
+    // Uma consulta "IN (...)" por bloco de até TAMANHO_BLOCO_IN pedidos, agrupando em memória
+    private Map<Long, List<ItemPedido>> buscarItensDosPedidos(Connection connection, List<Long> pedidoIds) throws SQLException {
+        Map<Long, List<ItemPedido>> itensPorPedido = new HashMap<>();
+
+        for (int inicio = 0; inicio < pedidoIds.size(); inicio += TAMANHO_BLOCO_IN) {
+            List<Long> bloco = pedidoIds.subList(inicio, Math.min(inicio + TAMANHO_BLOCO_IN, pedidoIds.size()));
+
+            // Arredonda a quantidade de "?" para potência de 2 (repetindo o último id),
+            // assim só existem poucas variações do SQL no cache de statements
+            int parametros = bloco.size() == 1 ? 1 : Integer.highestOneBit(bloco.size() - 1) << 1;
+            String sql = "SELECT * FROM itens_pedido WHERE pedido_id IN ("
+                    + String.join(", ", Collections.nCopies(parametros, "?")) + ")";
+
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                for (int i = 0; i < parametros; i++) {
+                    stmt.setLong(i + 1, bloco.get(Math.min(i, bloco.size() - 1)));
+                }
+                ResultSet rs = stmt.executeQuery();
+
+                while (rs.next()) {
+                    itensPorPedido.computeIfAbsent(rs.getLong("pedido_id"), id -> new ArrayList<>())
+                            .add(mapearItem(rs));
+                }
+            }
+        }
+
+        return itensPorPedido;
+    }
+
+    // Uma página de TAMANHO_FETCH agregados (cabeçalhos + uma consulta de itens) por vez em memória
+    private class PaginasPedidos extends Spliterators.AbstractSpliterator<Pedido> {
+        private final String clienteId;
+        private final Deque<Pedido> pagina = new ArrayDeque<>(TAMANHO_FETCH);
+        private Long ultimoId;
+        private boolean esgotado;
+
+        PaginasPedidos(String clienteId) {
+            super(Long.MAX_VALUE, ORDERED | NONNULL);
+            this.clienteId = clienteId;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Pedido> acao) {
+            if (pagina.isEmpty() && !esgotado) {
+                List<Pedido> proximos = buscarPorCliente(clienteId, ultimoId, TAMANHO_FETCH);
+                esgotado = proximos.size() < TAMANHO_FETCH;
+                if (!proximos.isEmpty()) {
+                    ultimoId = proximos.get(proximos.size() - 1).getId();
+                }
+                pagina.addAll(proximos);
+            }
+            Pedido proximo = pagina.pollFirst();
+            if (proximo == null) {
+                return false;
             }
+            acao.accept(proximo);
+            return true;
         }
+    }
+
+    // Versão que ficará no banco: 0 na inserção, +1 a cada atualização
+    private static long versaoAposSalvar(Pedido pedido) {
+        return pedido.getId() == null ? pedido.getVersao() : pedido.getVersao() + 1;
+    }
 
-        return itens;
+    private void desfazer(Connection connection) {
+        try {
+            connection.rollback();
+        } catch (SQLException rollbackEx) {
+            throw new RuntimeException("Erro no rollback", rollbackEx);
+        }
     }
 
     // ✅ Implementação completa do mapeamento usando factory method
@@ -246,32 +603,19 @@ public class JdbcPedidoRepository implements PedidoRepository {
                 rs.getString("cliente_id"),
                 StatusPedido.valueOf(rs.getString("status")),
                 rs.getBigDecimal("valor_total"),
-                rs.getTimestamp("data_criacao").toLocalDateTime()
+                rs.getTimestamp("data_criacao").toLocalDateTime(),
+                rs.getLong("versao")
         );
     }
 
     // ✅ Implementação completa do mapeamento de item
     private ItemPedido mapearItem(ResultSet rs) throws SQLException {
         return ItemPedido.restaurar(
+                rs.getLong("id"),
                 rs.getString("produto_id"),
                 rs.getInt("quantidade"),
                 rs.getBigDecimal("preco_unitario"),
                 rs.getBigDecimal("subtotal")
         );
     }
-
-    // Método auxiliar para copiar dados (alternativa ao reflection)
-    private void copiarDados(Pedido origem, Pedido destino) {
-        // Aqui você implementaria a cópia dos dados necessários
-        // ou mudaria a arquitetura para retornar o novo pedido
-        // Por simplicidade, assumimos que existe um método no domínio para isso
-        // ou usamos reflection mínima apenas para o ID
-        try {
-            java.lang.reflect.Field idField = destino.getClass().getDeclaredField("id");
-            idField.setAccessible(true);
-            idField.set(destino, origem.getId());
-        } catch (Exception e) {
-            throw new RuntimeException("Erro ao copiar ID", e);
-        }
-    }
-}
\ No newline at end of file
+}
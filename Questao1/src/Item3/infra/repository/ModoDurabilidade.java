@@ -0,0 +1,8 @@
+package Item3.infra.repository;
+
+// Quando o log do FilePedidoRepository é forçado para o disco
+public enum ModoDurabilidade {
+    POR_COMMIT, // fsync a cada salvar/remover: nada confirmado se perde
+    AGRUPADO,   // fsync periódico em segundo plano: perde no máximo um intervalo
+    NENHUM      // o sistema operacional decide quando gravar
+}
@@ -0,0 +1,152 @@
+package Item3.infra.service;
+
+import Item3.domain.Pedido;
+import Item3.domain.repository.PedidoRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind com group commit: pedidos já validados entram numa fila limitada e uma
+ * thread gravadora os persiste em grupos via salvarTodos, por tamanho ou por tempo.
+ * Cada chamador recebe um CompletableFuture concluído com o id quando o grupo é confirmado.
+ * Fila cheia bloqueia quem enfileira (backpressure). Se o grupo falhar (inclusive com Error)
+ * ou a gravadora for interrompida, os futuros são concluídos com a exceção: nenhum fica pendente.
+ * Use tamanhoGrupo <= tamanho de lote do repositório para que cada grupo seja um único commit.
+ */
+public class GravacaoEmGrupo implements AutoCloseable {
+    private final PedidoRepository repository;
+    private final int tamanhoGrupo;
+    private final long intervaloMaximoNanos;
+    private final BlockingQueue<Pendente> fila;
+    private final Thread gravadora;
+    private volatile boolean encerrando;
+    private volatile boolean terminada; // a gravadora não tira mais nada da fila
+
+    public GravacaoEmGrupo(PedidoRepository repository, int capacidadeFila, int tamanhoGrupo, Duration intervaloMaximo) {
+        if (capacidadeFila <= 0 || tamanhoGrupo <= 0) {
+            throw new IllegalArgumentException("Capacidade da fila e tamanho do grupo devem ser maiores que zero");
+        }
+        this.repository = repository;
+        this.tamanhoGrupo = tamanhoGrupo;
+        this.intervaloMaximoNanos = intervaloMaximo.toNanos();
+        this.fila = new ArrayBlockingQueue<>(capacidadeFila);
+        this.gravadora = new Thread(this::executar, "gravacao-em-grupo-pedidos");
+        this.gravadora.start();
+    }
+
+    // Bloqueia enquanto a fila estiver cheia
+    public CompletableFuture<Long> enfileirar(Pedido pedido) {
+        if (encerrando) {
+            throw new IllegalStateException("Gravação em grupo encerrada");
+        }
+        Pendente pendente = new Pendente(pedido);
+        try {
+            fila.put(pendente);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido aguardando espaço na fila de gravação", e);
+        }
+        // Corrida com close(): a gravadora já esvaziou a fila e não vai ver este pedido
+        if (terminada && fila.remove(pendente)) {
+            pendente.futuro.completeExceptionally(new IllegalStateException("Gravação em grupo encerrada"));
+        }
+        return pendente.futuro;
+    }
+
+    public int getProfundidadeFila() { return fila.size(); }
+
+    private void executar() {
+        List<Pendente> grupo = new ArrayList<>(tamanhoGrupo);
+        try {
+            while (!encerrando || !fila.isEmpty()) {
+                try {
+                    Pendente primeiro = fila.poll(100, TimeUnit.MILLISECONDS);
+                    if (primeiro == null) {
+                        continue;
+                    }
+                    grupo.add(primeiro);
+
+                    // Junta mais pedidos até encher o grupo ou vencer o intervalo desde o primeiro
+                    long limite = System.nanoTime() + intervaloMaximoNanos;
+                    while (grupo.size() < tamanhoGrupo) {
+                        long restante = limite - System.nanoTime();
+                        Pendente proximo = restante > 0 ? fila.poll(restante, TimeUnit.NANOSECONDS) : fila.poll();
+                        if (proximo == null) {
+                            break;
+                        }
+                        grupo.add(proximo);
+                    }
+
+                    gravar(grupo);
+                } catch (InterruptedException e) {
+                    // Interrompida no meio da coleta: grava o que já foi tirado da fila e encerra
+                    encerrando = true;
+                    gravar(grupo);
+                } finally {
+                    // Nenhum chamador fica esperando por um pedido que saiu da fila
+                    falharPendentes(grupo, new IllegalStateException("Pedido não gravado: gravação em grupo interrompida"));
+                    grupo.clear();
+                }
+            }
+        } finally {
+            terminada = true;
+            List<Pendente> restantes = new ArrayList<>();
+            fila.drainTo(restantes);
+            falharPendentes(restantes, new IllegalStateException("Gravação em grupo encerrada"));
+        }
+    }
+
+    // Qualquer falha (inclusive Error) fica no futuro de cada pedido do grupo; a gravadora segue viva
+    private void gravar(List<Pendente> grupo) {
+        if (grupo.isEmpty()) {
+            return;
+        }
+        List<Pedido> pedidos = new ArrayList<>(grupo.size());
+        for (Pendente pendente : grupo) {
+            pedidos.add(pendente.pedido);
+        }
+
+        try {
+            repository.salvarTodos(pedidos);
+        } catch (Throwable e) {
+            falharPendentes(grupo, e);
+            return;
+        }
+
+        for (Pendente pendente : grupo) {
+            pendente.futuro.complete(pendente.pedido.getId());
+        }
+    }
+
+    private static void falharPendentes(List<Pendente> pendentes, Throwable causa) {
+        for (Pendente pendente : pendentes) {
+            pendente.futuro.completeExceptionally(causa); // sem efeito nos já concluídos
+        }
+    }
+
+    // Para de aceitar pedidos, grava o que já está na fila e aguarda a thread gravadora
+    @Override
+    public void close() {
+        encerrando = true;
+        try {
+            gravadora.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Pendente {
+        final Pedido pedido;
+        final CompletableFuture<Long> futuro = new CompletableFuture<>();
+
+        Pendente(Pedido pedido) {
+            this.pedido = pedido;
+        }
+    }
+}
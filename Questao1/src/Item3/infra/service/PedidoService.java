@@ -1,20 +1,58 @@
 package Item3.infra.service;
 
 import Item3.domain.Pedido;
+import Item3.domain.repository.ConflitoConcorrenciaException;
 import Item3.domain.repository.PedidoRepository;
 import Item3.infra.dto.ItemRequest;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class PedidoService {
     private PedidoRepository repository;
+    // Retentativas em caso de conflito de versão (1 = sem retentativa)
+    private final int tentativasMaximas;
+    private final Duration esperaInicial;
+    // Modo assíncrono de entrada de pedidos (null = só o modo síncrono)
+    private final GravacaoEmGrupo gravacaoEmGrupo;
 
     public PedidoService(PedidoRepository repository) {
+        this(repository, 1, Duration.ZERO);
+    }
+
+    public PedidoService(PedidoRepository repository, int tentativasMaximas, Duration esperaInicial) {
+        this(repository, tentativasMaximas, esperaInicial, null);
+    }
+
+    public PedidoService(PedidoRepository repository, int tentativasMaximas, Duration esperaInicial,
+                         GravacaoEmGrupo gravacaoEmGrupo) {
+        if (tentativasMaximas < 1) {
+            throw new IllegalArgumentException("Deve haver pelo menos uma tentativa");
+        }
         this.repository = repository;
+        this.tentativasMaximas = tentativasMaximas;
+        this.esperaInicial = esperaInicial;
+        this.gravacaoEmGrupo = gravacaoEmGrupo;
     }
 
     public void criarPedido(String clienteId, List<ItemRequest> itensRequest) {
+        // Salva o agregado completo
+        repository.salvar(montarPedido(clienteId, itensRequest));
+    }
+
+    // Valida e monta o pedido já, mas só o grava no próximo group commit.
+    // O futuro é concluído com o id quando o pedido estiver durável.
+    public CompletableFuture<Long> criarPedidoAssincrono(String clienteId, List<ItemRequest> itensRequest) {
+        if (gravacaoEmGrupo == null) {
+            throw new IllegalStateException("Serviço criado sem gravação em grupo");
+        }
+        return gravacaoEmGrupo.enfileirar(montarPedido(clienteId, itensRequest));
+    }
+
+    private Pedido montarPedido(String clienteId, List<ItemRequest> itensRequest) {
         // Cria o agregado
         Pedido pedido = Pedido.criarNovo(clienteId);
 
@@ -27,20 +65,40 @@ public class PedidoService {
 
         // Confirma o pedido (valida invariante: deve ter itens)
         pedido.confirmar();
-
-        // Salva o agregado completo
-        repository.salvar(pedido);
+        return pedido;
     }
 
     public void adicionarItemAoPedido(Long pedidoId, String produtoId, int quantidade, BigDecimal preco) {
-        // Recupera o agregado completo
-        Pedido pedido = repository.buscarPorId(pedidoId)
-                .orElseThrow(() -> new IllegalArgumentException("Pedido não encontrado"));
+        for (int tentativa = 1; ; tentativa++) {
+            // Recupera o agregado completo
+            Pedido pedido = repository.buscarPorId(pedidoId)
+                    .orElseThrow(() -> new IllegalArgumentException("Pedido não encontrado"));
 
-        // Modifica através da raiz do agregado (invariantes protegidas)
-        pedido.adicionarItem(produtoId, quantidade, preco);
+            // Modifica através da raiz do agregado (invariantes protegidas)
+            pedido.adicionarItem(produtoId, quantidade, preco);
 
-        // Salva o agregado completo
-        repository.salvar(pedido);
+            try {
+                // Salva o agregado completo (falha se outro escritor gravou antes)
+                repository.salvar(pedido);
+                return;
+            } catch (ConflitoConcorrenciaException e) {
+                if (tentativa >= tentativasMaximas) {
+                    throw e;
+                }
+                aguardarAntesDeTentarNovamente(tentativa);
+            }
+        }
+    }
+
+    // Backoff exponencial com jitter, para que escritores concorrentes não colidam de novo
+    private void aguardarAntesDeTentarNovamente(int tentativa) {
+        long base = esperaInicial.toMillis() << Math.min(tentativa - 1, 16);
+        long espera = base / 2 + ThreadLocalRandom.current().nextLong(base / 2 + 1);
+        try {
+            Thread.sleep(espera);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido aguardando nova tentativa", e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,160 @@
+package Item3.infra.service;
+
+import Item3.infra.dto.ItemRequest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Entrada de pedidos com uma virtual thread por solicitação: dezenas de milhares de
+ * pedidos podem esperar ao mesmo tempo sem ocupar threads de plataforma.
+ * O semáforo limita quantos chegam ao banco simultaneamente (use o tamanho do pool de
+ * conexões), então o excesso espera aqui e não no timeout de aquisição do pool.
+ *
+ * O caminho até o banco (PoolConexoes, CacheStatements, repositórios) usa ReentrantLock,
+ * Semaphore e filas concorrentes, nunca synchronized, para não prender a thread portadora.
+ *
+ * Cada solicitação tem prazo para obter a vaga: se não conseguir, o futuro falha com
+ * TimeoutException. Cancelar o futuro interrompe a espera pela vaga. Depois que a gravação
+ * começou ela nunca é interrompida (nem no meio do JDBC ou do commit): vai até o fim e o
+ * futuro reflete o resultado real.
+ */
+public class RecepcaoPedidos implements AutoCloseable {
+    // Fase de cada solicitação: a troca AGUARDANDO -> GRAVANDO ou -> DESISTIU acontece uma única vez
+    private static final int AGUARDANDO = 0;
+    private static final int GRAVANDO = 1;
+    private static final int DESISTIU = 2;
+
+    private final PedidoService servico;
+    private final Semaphore acessosBanco;
+    private final Duration prazoPadrao;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<CompletableFuture<Void>> aguardandoVaga = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger emAndamento = new AtomicInteger(); // com vaga, falando com o banco
+    private final AtomicInteger naFila = new AtomicInteger();      // esperando vaga no semáforo
+    private final LongAdder concluidos = new LongAdder();
+    private final LongAdder falhas = new LongAdder();
+    private final LongAdder expirados = new LongAdder();
+    private final LongAdder cancelados = new LongAdder();
+
+    public RecepcaoPedidos(PedidoService servico, int acessosSimultaneos, Duration prazoPadrao) {
+        if (acessosSimultaneos <= 0) {
+            throw new IllegalArgumentException("Deve haver pelo menos um acesso simultâneo ao banco");
+        }
+        this.servico = servico;
+        this.acessosBanco = new Semaphore(acessosSimultaneos, true);
+        this.prazoPadrao = prazoPadrao;
+    }
+
+    public CompletableFuture<Void> submeter(String clienteId, List<ItemRequest> itens) {
+        return submeter(clienteId, itens, prazoPadrao);
+    }
+
+    // O prazo conta desde a submissão e vale só para a espera por vaga, não para a gravação
+    public CompletableFuture<Void> submeter(String clienteId, List<ItemRequest> itens, Duration prazo) {
+        long limite = System.nanoTime() + prazo.toNanos();
+        CompletableFuture<Void> resultado = new CompletableFuture<>();
+        AtomicInteger fase = new AtomicInteger(AGUARDANDO);
+        aguardandoVaga.add(resultado);
+        Future<?> tarefa;
+        try {
+            tarefa = executor.submit(() -> executar(clienteId, itens, limite, resultado, fase));
+        } catch (RejectedExecutionException e) {
+            aguardandoVaga.remove(resultado);
+            throw e;
+        }
+
+        resultado.whenComplete((r, erro) -> {
+            // Só interrompe quem ainda espera a vaga; a troca de fase decide a corrida com o início da gravação
+            if (erro instanceof CancellationException && fase.compareAndSet(AGUARDANDO, DESISTIU)) {
+                tarefa.cancel(true);
+            }
+        });
+        return resultado;
+    }
+
+    private void executar(String clienteId, List<ItemRequest> itens, long limite,
+                          CompletableFuture<Void> resultado, AtomicInteger fase) {
+        naFila.incrementAndGet();
+        boolean obteveVaga;
+        try {
+            obteveVaga = acessosBanco.tryAcquire(limite - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            resultado.cancel(false); // sem efeito se o futuro já foi cancelado
+            contarDesistencia(resultado);
+            return;
+        } finally {
+            naFila.decrementAndGet();
+            aguardandoVaga.remove(resultado);
+        }
+        if (!obteveVaga) {
+            if (fase.compareAndSet(AGUARDANDO, DESISTIU)) {
+                expirados.increment();
+                resultado.completeExceptionally(new TimeoutException("Sem vaga para acessar o banco dentro do prazo"));
+            } else {
+                contarDesistencia(resultado);
+            }
+            return;
+        }
+
+        emAndamento.incrementAndGet();
+        try {
+            if (!fase.compareAndSet(AGUARDANDO, GRAVANDO)) { // cancelado enquanto esperava a vaga
+                contarDesistencia(resultado);
+                return;
+            }
+            servico.criarPedido(clienteId, itens);
+            concluidos.increment();
+            resultado.complete(null);
+        } catch (RuntimeException | Error e) {
+            falhas.increment();
+            resultado.completeExceptionally(e);
+        } finally {
+            emAndamento.decrementAndGet();
+            acessosBanco.release();
+        }
+    }
+
+    private void contarDesistencia(CompletableFuture<Void> resultado) {
+        if (resultado.isCancelled()) {
+            cancelados.increment();
+        } else {
+            expirados.increment();
+        }
+    }
+
+    public int getEmAndamento() { return emAndamento.get(); }
+    public int getNaFila() { return naFila.get(); }
+    public long getConcluidos() { return concluidos.sum(); }
+    public long getFalhas() { return falhas.sum(); }
+    public long getExpirados() { return expirados.sum(); }
+    public long getCancelados() { return cancelados.sum(); }
+
+    // Para de aceitar solicitações e cancela as que esperam vaga; gravações em curso terminam normalmente
+    public void cancelarTodos() {
+        executor.shutdown();
+        for (CompletableFuture<Void> resultado : aguardandoVaga) {
+            resultado.cancel(false);
+        }
+    }
+
+    // Para de aceitar solicitações e espera as que já foram submetidas terminarem
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
@@ -0,0 +1,10 @@
+package domain.DataMapper;
+
+// Estado do livro quando foi lido (original) e o estado a gravar (atual), para atualização otimista
+public record AlteracaoLivro(Livro original, Livro atual) {
+    public AlteracaoLivro {
+        if (original.getId() == null || !original.getId().equals(atual.getId())) {
+            throw new IllegalArgumentException("Original e atual devem ser o mesmo livro persistido");
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package domain.DataMapper;
+
+import java.util.List;
+
+// Lançada quando livros foram alterados (ou removidos) por outra transação desde que foram lidos
+public class ConflitoLivroException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final Long[] livroIds;
+
+    public ConflitoLivroException(List<Long> livroIds) {
+        super("Livros alterados por outra transação desde a leitura: " + livroIds);
+        this.livroIds = livroIds.toArray(Long[]::new);
+    }
+
+    public List<Long> getLivroIds() { return List.of(livroIds); }
+}
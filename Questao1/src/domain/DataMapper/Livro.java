@@ -26,6 +26,12 @@ public class Livro {
         this.disponivel = true;
     }
 
+    // Identidade atribuída uma única vez, pelo repositório, depois do INSERT
+    public void atribuirId(Long id) {
+        if (this.id != null) throw new IllegalStateException("Livro já possui id " + this.id);
+        this.id = id;
+    }
+
     // Getters
     public Long getId() { return id; }
     public String getTitulo() { return titulo; }
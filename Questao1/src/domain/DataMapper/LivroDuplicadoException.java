@@ -0,0 +1,15 @@
+package domain.DataMapper;
+
+// Lançada quando o banco recusa a gravação porque já existe livro com o mesmo ISBN (índice único)
+public class LivroDuplicadoException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final String isbn;
+
+    public LivroDuplicadoException(String isbn, Throwable causa) {
+        super("Já existe livro com o ISBN " + isbn, causa);
+        this.isbn = isbn;
+    }
+
+    public String getIsbn() { return isbn; }
+}
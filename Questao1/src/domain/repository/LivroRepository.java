@@ -1,14 +1,26 @@
 package domain.repository;
+import domain.DataMapper.AlteracaoLivro;
 import domain.DataMapper.Livro;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface LivroRepository {
     void salvar(Livro livro);
+    void salvarTodos(Collection<Livro> livros); // Uma transação; novos recebem id após o commit
+    void atualizarSeInalterados(Collection<AlteracaoLivro> alteracoes); // Uma transação; ConflitoLivroException e nada gravado se algum mudou desde a leitura
     void remover(Livro livro);
+    boolean emprestarSeDisponivel(Long id); // Atômico no banco: false se já emprestado ou inexistente
+    boolean devolverSeEmprestado(Long id);  // Atômico no banco: false se já disponível ou inexistente
     Optional<Livro> buscarPorId(Long id);
+    List<Livro> buscarPorIds(Collection<Long> ids); // Ids inexistentes são ignorados; ordem não garantida
+    Optional<Livro> buscarPorIsbn(String isbn); // Ignora hífens/espaços de ISBN válido; havendo repetidos, o de menor id
     List<Livro> buscarTodos();
     List<Livro> buscarDisponiveis();
-    List<Livro> buscarPorAutor(String autor);
+    List<Livro> buscarDisponiveis(Long aposId, int limite); // Página por chave: id > aposId, em ordem de id
+    long contarDisponiveis();
+    List<Livro> buscarDisponiveisPorAutor(String autor);
+    List<Livro> buscarPorAutor(String autor);   // Trecho do nome, como LIKE '%autor%'
+    List<Livro> buscarPorTitulo(String titulo); // Trecho do título, como LIKE '%titulo%'
 }
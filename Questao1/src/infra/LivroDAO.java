@@ -6,6 +6,7 @@ import domain.DAO.Livro;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface LivroDAO {
     void salvar(Livro livro) throws SQLException;
@@ -13,6 +14,7 @@ public interface LivroDAO {
     void deletar(Long id);
     Optional<Livro> buscarPorId(Long id);
     List<Livro> buscarTodos() throws SQLException;
+    void paraCada(Consumer<Livro> acao) throws SQLException; // Varre a tabela linha a linha, sem montar lista
     List<Livro> buscarPorAutor(String autor);
     List<Livro> buscarDisponiveis();
 }
\ No newline at end of file
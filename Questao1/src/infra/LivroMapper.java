@@ -1,14 +1,23 @@
 package infra;
 
+import domain.DataMapper.AlteracaoLivro;
 import domain.DataMapper.Livro;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface LivroMapper {
     void insert(Livro livro);
     void update(Livro livro);
+    void updateAll(Collection<Livro> livros); // Um batch, uma transação
+    void updateAllIfUnchanged(Collection<AlteracaoLivro> changes); // Como updateAll, mas ConflitoLivroException e nada gravado se algum mudou desde a leitura
     void delete(Long id);
+    boolean borrowIfAvailable(Long id); // UPDATE condicional: true se esta chamada emprestou o livro
+    boolean returnIfBorrowed(Long id);  // UPDATE condicional: true se esta chamada devolveu o livro
     Optional<Livro> findById(Long id);
+    List<Livro> findByIds(Collection<Long> ids); // Ids inexistentes são ignorados
     List<Livro> findAll();
+    Stream<Livro> streamAll(); // Cursor aberto: usar em try-with-resources para liberar a conexão
 }
@@ -0,0 +1,82 @@
+package infra.impl;
+
+import domain.DataMapper.AlteracaoLivro;
+import domain.DataMapper.Livro;
+import infra.importacao.Isbn;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * UPDATE em lote que só grava a linha se ela ainda estiver como foi lida: todas as colunas
+ * do estado original entram no WHERE. Usado por JdbcLivroRepository e JdbcLivroMapper;
+ * a transação é do chamador, que desfaz tudo se algum livro vier em conflito.
+ */
+final class AtualizacaoOtimista {
+    private AtualizacaoOtimista() {}
+
+    // Executa os batches na conexão do chamador e devolve os ids que não foram atualizados
+    static List<Long> executar(Connection connection, Collection<AlteracaoLivro> alteracoes) throws SQLException {
+        // Coluna nula no original vira "IS NULL": um SQL por combinação, quase sempre um só
+        Map<String, List<AlteracaoLivro>> porSql = new LinkedHashMap<>();
+        for (AlteracaoLivro alteracao : alteracoes) {
+            porSql.computeIfAbsent(sql(alteracao.original()), k -> new ArrayList<>()).add(alteracao);
+        }
+
+        List<Long> conflitos = new ArrayList<>();
+        for (Map.Entry<String, List<AlteracaoLivro>> grupo : porSql.entrySet()) {
+            try (PreparedStatement stmt = connection.prepareStatement(grupo.getKey())) {
+                for (AlteracaoLivro alteracao : grupo.getValue()) {
+                    vincular(stmt, alteracao);
+                    stmt.addBatch();
+                }
+                int[] linhas = stmt.executeBatch();
+                for (int i = 0; i < linhas.length; i++) {
+                    if (linhas[i] == Statement.SUCCESS_NO_INFO) {
+                        throw new SQLException("Driver não informou as linhas atualizadas; conflitos não podem ser verificados");
+                    }
+                    if (linhas[i] == 0) {
+                        conflitos.add(grupo.getValue().get(i).atual().getId());
+                    }
+                }
+            }
+        }
+        return conflitos;
+    }
+
+    private static String sql(Livro original) {
+        return "UPDATE livros SET titulo=?, autor=?, isbn=?, disponivel=? WHERE id=?"
+                + condicao("titulo", original.getTitulo())
+                + condicao("autor", original.getAutor())
+                + condicao("isbn", original.getIsbn())
+                + " AND disponivel=?";
+    }
+
+    private static String condicao(String coluna, String valorOriginal) {
+        return valorOriginal == null ? " AND " + coluna + " IS NULL" : " AND " + coluna + "=?";
+    }
+
+    private static void vincular(PreparedStatement stmt, AlteracaoLivro alteracao) throws SQLException {
+        Livro atual = alteracao.atual();
+        Livro original = alteracao.original();
+        stmt.setString(1, atual.getTitulo());
+        stmt.setString(2, atual.getAutor());
+        stmt.setString(3, Isbn.chave(atual.getIsbn()));
+        stmt.setBoolean(4, atual.isDisponivel());
+        stmt.setLong(5, atual.getId());
+        int p = 6;
+        for (String valor : new String[]{original.getTitulo(), original.getAutor(), original.getIsbn()}) {
+            if (valor != null) {
+                stmt.setString(p++, valor);
+            }
+        }
+        stmt.setBoolean(p, original.isDisponivel());
+    }
+}
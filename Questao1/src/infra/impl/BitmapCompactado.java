@@ -0,0 +1,225 @@
+package infra.impl;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Conjunto de ids compactado no estilo Roaring: os ids são agrupados pelos bits altos
+ * (blocos de 65536) e cada bloco guarda os 16 bits baixos num array ordenado, enquanto
+ * esparso, ou num bitmap de 8 KB quando passa de 4096 elementos. Contagem em O(1),
+ * pertinência em O(log n) e iteração ordenada a partir de um id (para paginação).
+ * Não é thread-safe; IndexedLivroRepository o protege com seu lock.
+ */
+final class BitmapCompactado {
+    private static final int LIMITE_ARRAY = 4096; // acima disso o bitmap (8 KB) ocupa menos
+
+    private final TreeMap<Long, Conteiner> blocos = new TreeMap<>();
+    private long cardinalidade;
+
+    boolean adicionar(long id) {
+        long chave = id >>> 16;
+        Conteiner bloco = blocos.get(chave);
+        if (bloco == null) {
+            bloco = new ConteinerArray();
+            blocos.put(chave, bloco);
+        }
+        if (!bloco.adicionar((char) id)) {
+            return false;
+        }
+        cardinalidade++;
+        if (bloco instanceof ConteinerArray array && array.tamanho > LIMITE_ARRAY) {
+            blocos.put(chave, array.paraBitmap());
+        }
+        return true;
+    }
+
+    boolean remover(long id) {
+        long chave = id >>> 16;
+        Conteiner bloco = blocos.get(chave);
+        if (bloco == null || !bloco.remover((char) id)) {
+            return false;
+        }
+        cardinalidade--;
+        if (bloco.cardinalidade() == 0) {
+            blocos.remove(chave);
+        } else if (bloco instanceof ConteinerBitmap bitmap && bitmap.cardinalidade <= LIMITE_ARRAY / 2) {
+            blocos.put(chave, bitmap.paraArray()); // histerese para não alternar a cada operação
+        }
+        return true;
+    }
+
+    boolean contem(long id) {
+        Conteiner bloco = blocos.get(id >>> 16);
+        return bloco != null && bloco.contem((char) id);
+    }
+
+    long cardinalidade() {
+        return cardinalidade;
+    }
+
+    void limpar() {
+        blocos.clear();
+        cardinalidade = 0;
+    }
+
+    // Até limite ids maiores que aposId (null = desde o início), em ordem crescente
+    long[] proximos(Long aposId, int limite) {
+        long[] resultado = new long[(int) Math.min(limite, cardinalidade)];
+        int tamanho = 0;
+        long inicio = aposId == null ? 0 : aposId + 1;
+        for (Map.Entry<Long, Conteiner> e : blocos.tailMap(inicio >>> 16, true).entrySet()) {
+            long base = e.getKey() << 16;
+            int valor = e.getKey() == inicio >>> 16 ? (int) (inicio & 0xFFFF) : 0;
+            while (tamanho < resultado.length && (valor = e.getValue().proximo(valor)) >= 0) {
+                resultado[tamanho++] = base | valor;
+                valor++;
+            }
+            if (tamanho == resultado.length) {
+                break;
+            }
+        }
+        return Arrays.copyOf(resultado, tamanho);
+    }
+
+    // Mantém só os ids (ordenados) presentes no conjunto, sem alocar estruturas intermediárias
+    long[] intersectar(long[] idsOrdenados) {
+        long[] resultado = new long[idsOrdenados.length];
+        int tamanho = 0;
+        for (long id : idsOrdenados) {
+            if (contem(id)) {
+                resultado[tamanho++] = id;
+            }
+        }
+        return Arrays.copyOf(resultado, tamanho);
+    }
+
+    private interface Conteiner {
+        boolean adicionar(char valor);
+        boolean remover(char valor);
+        boolean contem(char valor);
+        int cardinalidade();
+        int proximo(int aPartirDe); // menor valor >= aPartirDe, ou -1
+    }
+
+    private static final class ConteinerArray implements Conteiner {
+        private char[] valores = new char[4];
+        private int tamanho;
+
+        @Override
+        public boolean adicionar(char valor) {
+            int pos = Arrays.binarySearch(valores, 0, tamanho, valor);
+            if (pos >= 0) {
+                return false;
+            }
+            pos = -pos - 1;
+            if (tamanho == valores.length) {
+                valores = Arrays.copyOf(valores, tamanho * 2);
+            }
+            System.arraycopy(valores, pos, valores, pos + 1, tamanho - pos);
+            valores[pos] = valor;
+            tamanho++;
+            return true;
+        }
+
+        @Override
+        public boolean remover(char valor) {
+            int pos = Arrays.binarySearch(valores, 0, tamanho, valor);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(valores, pos + 1, valores, pos, tamanho - pos - 1);
+            tamanho--;
+            return true;
+        }
+
+        @Override
+        public boolean contem(char valor) {
+            return Arrays.binarySearch(valores, 0, tamanho, valor) >= 0;
+        }
+
+        @Override
+        public int cardinalidade() { return tamanho; }
+
+        @Override
+        public int proximo(int aPartirDe) {
+            if (aPartirDe > Character.MAX_VALUE) {
+                return -1;
+            }
+            int pos = Arrays.binarySearch(valores, 0, tamanho, (char) aPartirDe);
+            if (pos < 0) {
+                pos = -pos - 1;
+            }
+            return pos < tamanho ? valores[pos] : -1;
+        }
+
+        ConteinerBitmap paraBitmap() {
+            ConteinerBitmap bitmap = new ConteinerBitmap();
+            for (int i = 0; i < tamanho; i++) {
+                bitmap.adicionar(valores[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    private static final class ConteinerBitmap implements Conteiner {
+        private final long[] palavras = new long[1024];
+        private int cardinalidade;
+
+        @Override
+        public boolean adicionar(char valor) {
+            long antes = palavras[valor >>> 6];
+            palavras[valor >>> 6] = antes | (1L << valor);
+            if (antes == palavras[valor >>> 6]) {
+                return false;
+            }
+            cardinalidade++;
+            return true;
+        }
+
+        @Override
+        public boolean remover(char valor) {
+            long antes = palavras[valor >>> 6];
+            palavras[valor >>> 6] = antes & ~(1L << valor);
+            if (antes == palavras[valor >>> 6]) {
+                return false;
+            }
+            cardinalidade--;
+            return true;
+        }
+
+        @Override
+        public boolean contem(char valor) {
+            return (palavras[valor >>> 6] & (1L << valor)) != 0;
+        }
+
+        @Override
+        public int cardinalidade() { return cardinalidade; }
+
+        @Override
+        public int proximo(int aPartirDe) {
+            int indice = aPartirDe >>> 6;
+            if (indice >= palavras.length) {
+                return -1;
+            }
+            long palavra = palavras[indice] & (-1L << aPartirDe);
+            while (true) {
+                if (palavra != 0) {
+                    return indice * 64 + Long.numberOfTrailingZeros(palavra);
+                }
+                if (++indice == palavras.length) {
+                    return -1;
+                }
+                palavra = palavras[indice];
+            }
+        }
+
+        ConteinerArray paraArray() {
+            ConteinerArray array = new ConteinerArray();
+            for (int valor = proximo(0); valor >= 0; valor = proximo(valor + 1)) {
+                array.adicionar((char) valor);
+            }
+            return array;
+        }
+    }
+}
@@ -0,0 +1,557 @@
+package infra.impl;
+
+import domain.DataMapper.AlteracaoLivro;
+import domain.DataMapper.Livro;
+import domain.repository.LivroRepository;
+import infra.importacao.Isbn;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Decorator com índice de trigramas em memória para buscarPorAutor e buscarPorTitulo,
+ * que no banco viram LIKE '%x%' e percorrem a tabela inteira, e um bitmap compactado
+ * dos ids disponíveis para contar, paginar e filtrar disponíveis sem ir ao banco
+ * (emprestar/devolver passam por salvar, que atualiza o bitmap). Um hash ISBN -> ids,
+ * com o ISBN na forma canônica (hífens e espaços ignorados, a mesma forma que o delegate grava),
+ * responde buscarPorIsbn; como o índice quente tem o catálogo inteiro, o caso comum na
+ * entrada de livros ("ISBN ainda não cadastrado") também é respondido sem consulta.
+ *
+ * Começa frio: as buscas vão para o delegate (SQL) até aquecer() carregar o catálogo.
+ * Depois disso salvar/remover mantêm o índice atualizado. A gravação no banco não segura
+ * nenhum lock global: só gravações dos mesmos ids (faixas de locks por id) esperam umas
+ * pelas outras, para que o índice de cada livro siga a ordem do banco. Gravações de outro
+ * processo exigem invalidar() e novo aquecimento; cargas em lote deste processo que
+ * gravam direto na tabela passam por recarregarApos().
+ * Frio, os ISBNs que o banco respondeu como ausentes ficam num cache negativo limitado,
+ * esquecido a cada gravação de ISBN por este decorator, invalidar() ou recarregarApos().
+ * A semântica é a mesma do LIKE: trecho exato, sensível a maiúsculas.
+ */
+public class IndexedLivroRepository implements LivroRepository {
+    private final LivroRepository delegate;
+
+    private static final int FAIXAS = 64; // potência de 2
+    private static final int ISBNS_AUSENTES_MAXIMO = 10_000;
+
+    // Gravações do mesmo id (banco + índice) em ordem; ids de faixas diferentes gravam em paralelo
+    private final ReentrantLock[] faixas = new ReentrantLock[FAIXAS];
+    private final ReentrantLock carga = new ReentrantLock(); // aquecer/invalidar/recarregarApos, um de cada vez
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(); // protege as estruturas do índice
+    private final Map<Long, Livro> livros = new HashMap<>(); // cópias, para conferir o trecho e responder
+    private final IndiceTrigramas autores = new IndiceTrigramas();
+    private final IndiceTrigramas titulos = new IndiceTrigramas();
+    private final BitmapCompactado disponiveis = new BitmapCompactado();
+    private final Map<String, long[]> porIsbn = new HashMap<>(); // chave Isbn.chave -> ids em ordem crescente
+
+    private final ReentrantLock travaAusentes = new ReentrantLock();
+    private final Set<String> isbnsAusentes = new HashSet<>(); // chaves Isbn.chave sem livro no banco
+    private long geracaoAusentes; // muda a cada gravação de ISBN; consulta mais antiga não entra no cache
+    private volatile boolean quente;
+
+    public IndexedLivroRepository(LivroRepository delegate) {
+        this.delegate = delegate;
+        for (int i = 0; i < FAIXAS; i++) {
+            faixas[i] = new ReentrantLock();
+        }
+    }
+
+    // Carrega todo o catálogo no índice; ajustes de gravações concorrentes esperam o fim da carga
+    public void aquecer() {
+        carga.lock();
+        try {
+            carregar();
+        } finally {
+            carga.unlock();
+        }
+    }
+
+    /*
+     * Para cargas que gravam direto na tabela (ex.: ImportadorCatalogo): durante a carga o
+     * índice fica frio (buscas e gravações seguem pelo banco); no fim, mesmo se a carga
+     * falhar no meio, o catálogo é recarregado se o índice estava quente.
+     */
+    public <T> T recarregarApos(Supplier<T> cargaExterna) {
+        carga.lock();
+        try {
+            boolean estavaQuente = quente;
+            esfriar();
+            try {
+                return cargaExterna.get();
+            } finally {
+                esquecerAusentes(null); // consultas durante a carga podem ter visto a tabela incompleta
+                if (estavaQuente) {
+                    carregar();
+                }
+            }
+        } finally {
+            carga.unlock();
+        }
+    }
+
+    /*
+     * O lock de escrita fica com a carga do começo da leitura até quente = true: um ajuste
+     * que chegue nesse meio tempo espera e é aplicado por cima do que foi lido; um ajuste que
+     * viu o índice frio é de uma gravação já confirmada, que a carga seguinte vai ler.
+     */
+    private void carregar() {
+        lock.writeLock().lock();
+        try {
+            limpar();
+            for (Livro livro : delegate.buscarTodos()) {
+                indexar(livro);
+            }
+            quente = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Volta ao modo frio (buscas em SQL) até o próximo aquecer()
+    public void invalidar() {
+        carga.lock();
+        try {
+            esfriar();
+        } finally {
+            carga.unlock();
+        }
+    }
+
+    public boolean isQuente() { return quente; }
+
+    @Override
+    public void salvar(Livro livro) {
+        gravarLivros(List.of(livro), () -> delegate.salvar(livro));
+    }
+
+    @Override
+    public void salvarTodos(Collection<Livro> livros) {
+        gravarLivros(livros, () -> delegate.salvarTodos(livros));
+    }
+
+    @Override
+    public void atualizarSeInalterados(Collection<AlteracaoLivro> alteracoes) {
+        List<Livro> atuais = alteracoes.stream().map(AlteracaoLivro::atual).toList();
+        try {
+            gravar(ids(atuais), () -> {
+                delegate.atualizarSeInalterados(alteracoes);
+                return null;
+            }, nada -> atuais.forEach(this::indexar));
+        } finally {
+            esquecerAusentes(atuais);
+        }
+    }
+
+    /*
+     * Livros já existentes: gravados e indexados sob as faixas dos seus ids. Livros novos só
+     * ganham id no INSERT; depois dele o índice relê do banco, sob a faixa do id novo, para
+     * não sobrescrever uma alteração que outra thread já tenha feito no livro recém-criado.
+     */
+    private void gravarLivros(Collection<Livro> gravados, Runnable noBanco) {
+        List<Livro> existentes = new ArrayList<>();
+        List<Livro> novos = new ArrayList<>();
+        for (Livro livro : gravados) {
+            (livro.getId() == null ? novos : existentes).add(livro);
+        }
+
+        try {
+            gravar(ids(existentes), () -> {
+                noBanco.run();
+                return null;
+            }, nada -> existentes.forEach(this::indexar));
+        } finally {
+            esquecerAusentes(gravados); // depois do commit (ou da falha): nenhum "ausente" sobrevive à gravação
+        }
+
+        if (!novos.isEmpty()) {
+            indexarNovos(novos);
+        }
+    }
+
+    private void indexarNovos(List<Livro> novos) {
+        List<Long> idsNovos = ids(novos);
+        if (idsNovos.contains(null)) {
+            // Delegate não devolveu a identidade: o índice não consegue acompanhar
+            esfriar();
+            return;
+        }
+        int[] travadas = travar(idsNovos);
+        try {
+            if (!isQuenteSobLock()) {
+                return; // a próxima carga lê estes livros do banco
+            }
+            List<Livro> lidos = delegate.buscarPorIds(idsNovos);
+            ajustarIndice(() -> lidos.forEach(this::indexar));
+        } finally {
+            destravar(travadas);
+        }
+    }
+
+    @Override
+    public void remover(Livro livro) {
+        gravar(Collections.singletonList(livro.getId()), () -> {
+            delegate.remover(livro);
+            return null;
+        }, nada -> desindexar(livro.getId()));
+    }
+
+    @Override
+    public boolean emprestarSeDisponivel(Long id) {
+        return gravar(Collections.singletonList(id), () -> delegate.emprestarSeDisponivel(id), emprestou -> {
+            if (emprestou) {
+                marcarDisponibilidade(id, false);
+            }
+        });
+    }
+
+    @Override
+    public boolean devolverSeEmprestado(Long id) {
+        return gravar(Collections.singletonList(id), () -> delegate.devolverSeEmprestado(id), devolveu -> {
+            if (devolveu) {
+                marcarDisponibilidade(id, true);
+            }
+        });
+    }
+
+    /*
+     * Gravação no banco e ajuste do índice sob as faixas dos ids envolvidos: duas gravações
+     * do mesmo livro chegam ao índice na ordem em que chegaram ao banco, e gravações de
+     * livros de outras faixas não esperam. Os leitores só esperam o ajuste do índice (lock
+     * de leitura/escrita), não o banco. Se o delegate falhar, o índice não muda.
+     */
+    private <T> T gravar(Collection<Long> ids, Supplier<T> noBanco, Consumer<T> noIndice) {
+        int[] travadas = travar(ids);
+        try {
+            T resultado = noBanco.get();
+            ajustarIndice(() -> noIndice.accept(resultado));
+            return resultado;
+        } finally {
+            destravar(travadas);
+        }
+    }
+
+    private void ajustarIndice(Runnable ajuste) {
+        lock.writeLock().lock();
+        try {
+            if (quente) {
+                ajuste.run();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Espera uma carga em andamento terminar (ela segura o lock de escrita)
+    private boolean isQuenteSobLock() {
+        lock.readLock().lock();
+        try {
+            return quente;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Faixas distintas em ordem crescente: duas gravações nunca as pegam em ordens opostas
+    private int[] travar(Collection<Long> ids) {
+        int[] travadas = ids.stream().filter(id -> id != null).mapToInt(IndexedLivroRepository::faixa)
+                .distinct().sorted().toArray();
+        for (int faixa : travadas) {
+            faixas[faixa].lock();
+        }
+        return travadas;
+    }
+
+    private void destravar(int[] travadas) {
+        for (int i = travadas.length - 1; i >= 0; i--) {
+            faixas[travadas[i]].unlock();
+        }
+    }
+
+    private static int faixa(Long id) {
+        return Long.hashCode(id) & (FAIXAS - 1);
+    }
+
+    private static List<Long> ids(Collection<Livro> livros) {
+        List<Long> ids = new ArrayList<>(livros.size());
+        for (Livro livro : livros) {
+            ids.add(livro.getId());
+        }
+        return ids;
+    }
+
+    // Só a disponibilidade mudou no banco: troca a cópia e o bit, sem mexer nos trigramas
+    private void marcarDisponibilidade(Long id, boolean disponivel) {
+        Livro atual = livros.get(id);
+        if (atual == null) {
+            return;
+        }
+        livros.put(id, new Livro(id, atual.getTitulo(), atual.getAutor(), atual.getIsbn(), disponivel));
+        if (disponivel) {
+            disponiveis.adicionar(id);
+        } else {
+            disponiveis.remover(id);
+        }
+    }
+
+    private void esfriar() {
+        esquecerAusentes(null);
+        lock.writeLock().lock();
+        try {
+            quente = false;
+            limpar();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+     * quente só é confiável com o lock de leitura: conferido por fora, um invalidar()
+     * concorrente esvaziaria o índice antes da consulta e ela responderia "nada encontrado".
+     * Frio, a consulta vai ao delegate já sem o lock.
+     */
+    private <T> T consultar(Supplier<T> noIndice, Supplier<T> noBanco) {
+        lock.readLock().lock();
+        try {
+            if (quente) {
+                return noIndice.get();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return noBanco.get();
+    }
+
+    @Override
+    public Optional<Livro> buscarPorId(Long id) {
+        return delegate.buscarPorId(id);
+    }
+
+    @Override
+    public List<Livro> buscarPorIds(Collection<Long> ids) {
+        return delegate.buscarPorIds(ids);
+    }
+
+    @Override
+    public Optional<Livro> buscarPorIsbn(String isbn) {
+        return consultar(() -> {
+            long[] ids = porIsbn.get(Isbn.chave(isbn));
+            return ids == null ? Optional.empty() : Optional.of(copia(livros.get(ids[0])));
+        }, () -> buscarPorIsbnNoBanco(isbn));
+    }
+
+    // Índice frio: "ISBN ainda não cadastrado" repetido é respondido pelo cache negativo
+    private Optional<Livro> buscarPorIsbnNoBanco(String isbn) {
+        String chave = Isbn.chave(isbn);
+        long geracao;
+        travaAusentes.lock();
+        try {
+            if (isbnsAusentes.contains(chave)) {
+                return Optional.empty();
+            }
+            geracao = geracaoAusentes;
+        } finally {
+            travaAusentes.unlock();
+        }
+
+        Optional<Livro> livro = delegate.buscarPorIsbn(isbn);
+        if (livro.isEmpty()) {
+            travaAusentes.lock();
+            try {
+                // Uma gravação de ISBN durante a consulta pode ter tornado a resposta velha
+                if (geracao == geracaoAusentes) {
+                    if (isbnsAusentes.size() >= ISBNS_AUSENTES_MAXIMO) {
+                        isbnsAusentes.clear();
+                    }
+                    isbnsAusentes.add(chave);
+                }
+            } finally {
+                travaAusentes.unlock();
+            }
+        }
+        return livro;
+    }
+
+    // null esquece todos; chamado depois que a gravação chegou ao banco
+    private void esquecerAusentes(Collection<Livro> gravados) {
+        travaAusentes.lock();
+        try {
+            geracaoAusentes++;
+            if (gravados == null) {
+                isbnsAusentes.clear();
+                return;
+            }
+            for (Livro livro : gravados) {
+                isbnsAusentes.remove(Isbn.chave(livro.getIsbn()));
+            }
+        } finally {
+            travaAusentes.unlock();
+        }
+    }
+
+    @Override
+    public List<Livro> buscarTodos() {
+        return delegate.buscarTodos();
+    }
+
+    @Override
+    public List<Livro> buscarDisponiveis() {
+        return consultar(() -> paginaDisponiveis(null, Integer.MAX_VALUE), delegate::buscarDisponiveis);
+    }
+
+    @Override
+    public List<Livro> buscarDisponiveis(Long aposId, int limite) {
+        if (limite < 0) {
+            throw new IllegalArgumentException("Limite da página não pode ser negativo: " + limite);
+        }
+        return consultar(() -> paginaDisponiveis(aposId, limite), () -> delegate.buscarDisponiveis(aposId, limite));
+    }
+
+    private List<Livro> paginaDisponiveis(Long aposId, int limite) {
+        long[] ids = disponiveis.proximos(aposId, limite);
+        List<Livro> pagina = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            pagina.add(copia(livros.get(id)));
+        }
+        return pagina;
+    }
+
+    @Override
+    public long contarDisponiveis() {
+        return consultar(disponiveis::cardinalidade, delegate::contarDisponiveis);
+    }
+
+    @Override
+    public List<Livro> buscarDisponiveisPorAutor(String autor) {
+        if (temCuringa(autor)) {
+            return delegate.buscarDisponiveisPorAutor(autor);
+        }
+        return consultar(() -> buscarNoIndice(autores, autor, Livro::getAutor, true),
+                () -> delegate.buscarDisponiveisPorAutor(autor));
+    }
+
+    @Override
+    public List<Livro> buscarPorAutor(String autor) {
+        if (temCuringa(autor)) {
+            return delegate.buscarPorAutor(autor);
+        }
+        return consultar(() -> buscarNoIndice(autores, autor, Livro::getAutor, false),
+                () -> delegate.buscarPorAutor(autor));
+    }
+
+    @Override
+    public List<Livro> buscarPorTitulo(String titulo) {
+        if (temCuringa(titulo)) {
+            return delegate.buscarPorTitulo(titulo);
+        }
+        return consultar(() -> buscarNoIndice(titulos, titulo, Livro::getTitulo, false),
+                () -> delegate.buscarPorTitulo(titulo));
+    }
+
+    // Chamado com o lock de leitura
+    private List<Livro> buscarNoIndice(IndiceTrigramas indice, String trecho, Function<Livro, String> campo,
+                                       boolean somenteDisponiveis) {
+        List<Livro> encontrados = new ArrayList<>();
+        long[] candidatos = indice.candidatos(trecho);
+        if (candidatos == null) {
+            // Trecho curto demais para trigramas: varre o catálogo em memória
+            for (Livro livro : livros.values()) {
+                if ((!somenteDisponiveis || livro.isDisponivel()) && contem(campo.apply(livro), trecho)) {
+                    encontrados.add(copia(livro));
+                }
+            }
+            encontrados.sort((a, b) -> Long.compare(a.getId(), b.getId()));
+            return encontrados;
+        }
+        if (somenteDisponiveis) {
+            candidatos = disponiveis.intersectar(candidatos); // antes de conferir o texto
+        }
+        for (long id : candidatos) {
+            Livro livro = livros.get(id);
+            if (contem(campo.apply(livro), trecho)) {
+                encontrados.add(copia(livro));
+            }
+        }
+        return encontrados;
+    }
+
+    private void indexar(Livro livro) {
+        desindexar(livro.getId());
+        Livro copia = copia(livro);
+        livros.put(copia.getId(), copia);
+        autores.adicionar(copia.getId(), copia.getAutor());
+        titulos.adicionar(copia.getId(), copia.getTitulo());
+        if (copia.isDisponivel()) {
+            disponiveis.adicionar(copia.getId());
+        }
+        if (copia.getIsbn() != null) {
+            porIsbn.merge(Isbn.chave(copia.getIsbn()), new long[]{copia.getId()}, IndexedLivroRepository::unirIds);
+        }
+    }
+
+    private void desindexar(Long id) {
+        Livro anterior = livros.remove(id);
+        if (anterior != null) {
+            autores.remover(id, anterior.getAutor());
+            titulos.remover(id, anterior.getTitulo());
+            disponiveis.remover(id);
+            if (anterior.getIsbn() != null) {
+                porIsbn.computeIfPresent(Isbn.chave(anterior.getIsbn()), (isbn, ids) -> retirarId(ids, id));
+            }
+        }
+    }
+
+    private static long[] unirIds(long[] ids, long[] novo) {
+        long[] unidos = Arrays.copyOf(ids, ids.length + 1);
+        unidos[ids.length] = novo[0];
+        Arrays.sort(unidos);
+        return unidos;
+    }
+
+    // null remove a chave do mapa quando era o último livro com aquele ISBN
+    private static long[] retirarId(long[] ids, long id) {
+        if (ids.length == 1) {
+            return ids[0] == id ? null : ids;
+        }
+        int pos = Arrays.binarySearch(ids, id);
+        if (pos < 0) {
+            return ids;
+        }
+        long[] restantes = new long[ids.length - 1];
+        System.arraycopy(ids, 0, restantes, 0, pos);
+        System.arraycopy(ids, pos + 1, restantes, pos, ids.length - pos - 1);
+        return restantes;
+    }
+
+    private void limpar() {
+        livros.clear();
+        autores.limpar();
+        titulos.limpar();
+        disponiveis.limpar();
+        porIsbn.clear();
+    }
+
+    private static boolean contem(String texto, String trecho) {
+        return texto != null && texto.contains(trecho);
+    }
+
+    // % e _ são curingas no LIKE; nesses casos o SQL decide
+    private static boolean temCuringa(String trecho) {
+        return trecho.indexOf('%') >= 0 || trecho.indexOf('_') >= 0;
+    }
+
+    private static Livro copia(Livro livro) {
+        return new Livro(livro.getId(), livro.getTitulo(), livro.getAutor(), livro.getIsbn(), livro.isDisponivel());
+    }
+}
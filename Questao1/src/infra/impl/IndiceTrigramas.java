@@ -0,0 +1,112 @@
+package infra.impl;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Índice invertido de trigramas: para cada sequência de 3 caracteres, os ids (ordenados)
+ * dos textos que a contêm. Um trecho com k trigramas é respondido intersectando k listas,
+ * começando pela menor, sem percorrer todos os textos. O resultado são candidatos: o
+ * chamador confere o trecho no texto, porque ter todos os trigramas não garante a ordem.
+ * Não é thread-safe; IndexedLivroRepository o protege com seu lock.
+ */
+final class IndiceTrigramas {
+    private final Map<Long, Postagens> postagens = new HashMap<>();
+
+    void adicionar(long id, String texto) {
+        for (long trigrama : trigramas(texto)) {
+            postagens.computeIfAbsent(trigrama, t -> new Postagens()).adicionar(id);
+        }
+    }
+
+    // Recebe o texto indexado antes, para saber de quais listas tirar o id
+    void remover(long id, String texto) {
+        for (long trigrama : trigramas(texto)) {
+            Postagens lista = postagens.get(trigrama);
+            if (lista != null && lista.remover(id) && lista.tamanho == 0) {
+                postagens.remove(trigrama);
+            }
+        }
+    }
+
+    void limpar() {
+        postagens.clear();
+    }
+
+    // Ids que contêm todos os trigramas do trecho, em ordem crescente; null se o trecho
+    // tiver menos de 3 caracteres (não há trigrama para filtrar)
+    long[] candidatos(String trecho) {
+        long[] chaves = trigramas(trecho);
+        if (chaves.length == 0) {
+            return null;
+        }
+        Postagens[] listas = new Postagens[chaves.length];
+        for (int i = 0; i < chaves.length; i++) {
+            listas[i] = postagens.get(chaves[i]);
+            if (listas[i] == null) {
+                return new long[0];
+            }
+        }
+        Arrays.sort(listas, (a, b) -> Integer.compare(a.tamanho, b.tamanho));
+
+        long[] resultado = Arrays.copyOf(listas[0].ids, listas[0].tamanho);
+        int tamanho = resultado.length;
+        for (int i = 1; i < listas.length && tamanho > 0; i++) {
+            int mantidos = 0;
+            for (int j = 0; j < tamanho; j++) {
+                if (listas[i].contem(resultado[j])) {
+                    resultado[mantidos++] = resultado[j];
+                }
+            }
+            tamanho = mantidos;
+        }
+        return Arrays.copyOf(resultado, tamanho);
+    }
+
+    // Trigramas distintos do texto, cada um empacotado num long (3 chars de 16 bits)
+    private static long[] trigramas(String texto) {
+        if (texto == null || texto.length() < 3) {
+            return new long[0];
+        }
+        long[] chaves = new long[texto.length() - 2];
+        for (int i = 0; i < chaves.length; i++) {
+            chaves[i] = ((long) texto.charAt(i) << 32) | ((long) texto.charAt(i + 1) << 16) | texto.charAt(i + 2);
+        }
+        return Arrays.stream(chaves).distinct().toArray();
+    }
+
+    // Lista de ids ordenada; ids novos costumam ser maiores, então a inserção é quase sempre no fim
+    private static final class Postagens {
+        private long[] ids = new long[4];
+        private int tamanho;
+
+        void adicionar(long id) {
+            int pos = Arrays.binarySearch(ids, 0, tamanho, id);
+            if (pos >= 0) {
+                return;
+            }
+            pos = -pos - 1;
+            if (tamanho == ids.length) {
+                ids = Arrays.copyOf(ids, tamanho * 2);
+            }
+            System.arraycopy(ids, pos, ids, pos + 1, tamanho - pos);
+            ids[pos] = id;
+            tamanho++;
+        }
+
+        boolean remover(long id) {
+            int pos = Arrays.binarySearch(ids, 0, tamanho, id);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(ids, pos + 1, ids, pos, tamanho - pos - 1);
+            tamanho--;
+            return true;
+        }
+
+        boolean contem(long id) {
+            return Arrays.binarySearch(ids, 0, tamanho, id) >= 0;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package infra.impl;
+
+import domain.DataMapper.AlteracaoLivro;
+import domain.DataMapper.Livro;
+import infra.LivroMapper;
+import infra.metrics.MetricasOperacao;
+import infra.metrics.RegistroMetricas;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+// Decorator que mede chamadas, erros, latência e linhas retornadas de cada método do mapper
+public class InstrumentedLivroMapper implements LivroMapper {
+    private final LivroMapper delegate;
+
+    private final MetricasOperacao insert;
+    private final MetricasOperacao update;
+    private final MetricasOperacao updateAll;
+    private final MetricasOperacao updateAllIfUnchanged;
+    private final MetricasOperacao delete;
+    private final MetricasOperacao borrowIfAvailable;
+    private final MetricasOperacao returnIfBorrowed;
+    private final MetricasOperacao findById;
+    private final MetricasOperacao findByIds;
+    private final MetricasOperacao findAll;
+    private final MetricasOperacao streamAll;
+
+    public InstrumentedLivroMapper(LivroMapper delegate, RegistroMetricas registro) {
+        this.delegate = delegate;
+        this.insert = registro.operacao("LivroMapper.insert");
+        this.update = registro.operacao("LivroMapper.update");
+        this.updateAll = registro.operacao("LivroMapper.updateAll");
+        this.updateAllIfUnchanged = registro.operacao("LivroMapper.updateAllIfUnchanged");
+        this.delete = registro.operacao("LivroMapper.delete");
+        this.borrowIfAvailable = registro.operacao("LivroMapper.borrowIfAvailable");
+        this.returnIfBorrowed = registro.operacao("LivroMapper.returnIfBorrowed");
+        this.findById = registro.operacao("LivroMapper.findById");
+        this.findByIds = registro.operacao("LivroMapper.findByIds");
+        this.findAll = registro.operacao("LivroMapper.findAll");
+        this.streamAll = registro.operacao("LivroMapper.streamAll");
+    }
+
+    @Override
+    public void insert(Livro livro) {
+        insert.medir(() -> delegate.insert(livro));
+    }
+
+    @Override
+    public void update(Livro livro) {
+        update.medir(() -> delegate.update(livro));
+    }
+
+    @Override
+    public void updateAll(Collection<Livro> livros) {
+        updateAll.medir(() -> delegate.updateAll(livros));
+    }
+
+    @Override
+    public void updateAllIfUnchanged(Collection<AlteracaoLivro> changes) {
+        updateAllIfUnchanged.medir(() -> delegate.updateAllIfUnchanged(changes));
+    }
+
+    @Override
+    public void delete(Long id) {
+        delete.medir(() -> delegate.delete(id));
+    }
+
+    // Linhas = 1 quando a atualização condicional aconteceu
+    @Override
+    public boolean borrowIfAvailable(Long id) {
+        return borrowIfAvailable.medir(() -> delegate.borrowIfAvailable(id), ok -> ok ? 1 : 0);
+    }
+
+    @Override
+    public boolean returnIfBorrowed(Long id) {
+        return returnIfBorrowed.medir(() -> delegate.returnIfBorrowed(id), ok -> ok ? 1 : 0);
+    }
+
+    @Override
+    public Optional<Livro> findById(Long id) {
+        return findById.medir(() -> delegate.findById(id), l -> l.isPresent() ? 1 : 0);
+    }
+
+    @Override
+    public List<Livro> findByIds(Collection<Long> ids) {
+        return findByIds.medir(() -> delegate.findByIds(ids), List::size);
+    }
+
+    @Override
+    public List<Livro> findAll() {
+        return findAll.medir(delegate::findAll, List::size);
+    }
+
+    // Latência = abertura do cursor; as linhas são contadas conforme o stream é consumido
+    @Override
+    public Stream<Livro> streamAll() {
+        return streamAll.medir(delegate::streamAll, s -> 0).peek(l -> streamAll.adicionarLinhas(1));
+    }
+}
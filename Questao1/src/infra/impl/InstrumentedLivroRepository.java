@@ -0,0 +1,134 @@
+package infra.impl;
+
+import domain.DataMapper.AlteracaoLivro;
+import domain.DataMapper.Livro;
+import domain.repository.LivroRepository;
+import infra.metrics.MetricasOperacao;
+import infra.metrics.RegistroMetricas;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+// Decorator que mede chamadas, erros, latência e linhas retornadas de cada método do repositório
+public class InstrumentedLivroRepository implements LivroRepository {
+    private final LivroRepository delegate;
+
+    private final MetricasOperacao salvar;
+    private final MetricasOperacao salvarTodos;
+    private final MetricasOperacao atualizarSeInalterados;
+    private final MetricasOperacao remover;
+    private final MetricasOperacao emprestarSeDisponivel;
+    private final MetricasOperacao devolverSeEmprestado;
+    private final MetricasOperacao buscarPorId;
+    private final MetricasOperacao buscarPorIds;
+    private final MetricasOperacao buscarPorIsbn;
+    private final MetricasOperacao buscarTodos;
+    private final MetricasOperacao buscarDisponiveis;
+    private final MetricasOperacao buscarPaginaDisponiveis;
+    private final MetricasOperacao contarDisponiveis;
+    private final MetricasOperacao buscarDisponiveisPorAutor;
+    private final MetricasOperacao buscarPorAutor;
+    private final MetricasOperacao buscarPorTitulo;
+
+    public InstrumentedLivroRepository(LivroRepository delegate, RegistroMetricas registro) {
+        this.delegate = delegate;
+        this.salvar = registro.operacao("LivroRepository.salvar");
+        this.salvarTodos = registro.operacao("LivroRepository.salvarTodos");
+        this.atualizarSeInalterados = registro.operacao("LivroRepository.atualizarSeInalterados");
+        this.remover = registro.operacao("LivroRepository.remover");
+        this.emprestarSeDisponivel = registro.operacao("LivroRepository.emprestarSeDisponivel");
+        this.devolverSeEmprestado = registro.operacao("LivroRepository.devolverSeEmprestado");
+        this.buscarPorId = registro.operacao("LivroRepository.buscarPorId");
+        this.buscarPorIds = registro.operacao("LivroRepository.buscarPorIds");
+        this.buscarPorIsbn = registro.operacao("LivroRepository.buscarPorIsbn");
+        this.buscarTodos = registro.operacao("LivroRepository.buscarTodos");
+        this.buscarDisponiveis = registro.operacao("LivroRepository.buscarDisponiveis");
+        this.buscarPaginaDisponiveis = registro.operacao("LivroRepository.buscarDisponiveis(pagina)");
+        this.contarDisponiveis = registro.operacao("LivroRepository.contarDisponiveis");
+        this.buscarDisponiveisPorAutor = registro.operacao("LivroRepository.buscarDisponiveisPorAutor");
+        this.buscarPorAutor = registro.operacao("LivroRepository.buscarPorAutor");
+        this.buscarPorTitulo = registro.operacao("LivroRepository.buscarPorTitulo");
+    }
+
+    @Override
+    public void salvar(Livro livro) {
+        salvar.medir(() -> delegate.salvar(livro));
+    }
+
+    @Override
+    public void salvarTodos(Collection<Livro> livros) {
+        salvarTodos.medir(() -> delegate.salvarTodos(livros));
+    }
+
+    @Override
+    public void atualizarSeInalterados(Collection<AlteracaoLivro> alteracoes) {
+        atualizarSeInalterados.medir(() -> delegate.atualizarSeInalterados(alteracoes));
+    }
+
+    @Override
+    public void remover(Livro livro) {
+        remover.medir(() -> delegate.remover(livro));
+    }
+
+    // Linhas = 1 quando a atualização condicional aconteceu
+    @Override
+    public boolean emprestarSeDisponivel(Long id) {
+        return emprestarSeDisponivel.medir(() -> delegate.emprestarSeDisponivel(id), ok -> ok ? 1 : 0);
+    }
+
+    @Override
+    public boolean devolverSeEmprestado(Long id) {
+        return devolverSeEmprestado.medir(() -> delegate.devolverSeEmprestado(id), ok -> ok ? 1 : 0);
+    }
+
+    @Override
+    public Optional<Livro> buscarPorId(Long id) {
+        return buscarPorId.medir(() -> delegate.buscarPorId(id), l -> l.isPresent() ? 1 : 0);
+    }
+
+    @Override
+    public List<Livro> buscarPorIds(Collection<Long> ids) {
+        return buscarPorIds.medir(() -> delegate.buscarPorIds(ids), List::size);
+    }
+
+    @Override
+    public Optional<Livro> buscarPorIsbn(String isbn) {
+        return buscarPorIsbn.medir(() -> delegate.buscarPorIsbn(isbn), l -> l.isPresent() ? 1 : 0);
+    }
+
+    @Override
+    public List<Livro> buscarTodos() {
+        return buscarTodos.medir(delegate::buscarTodos, List::size);
+    }
+
+    @Override
+    public List<Livro> buscarDisponiveis() {
+        return buscarDisponiveis.medir(delegate::buscarDisponiveis, List::size);
+    }
+
+    @Override
+    public List<Livro> buscarDisponiveis(Long aposId, int limite) {
+        return buscarPaginaDisponiveis.medir(() -> delegate.buscarDisponiveis(aposId, limite), List::size);
+    }
+
+    @Override
+    public long contarDisponiveis() {
+        return contarDisponiveis.medir(delegate::contarDisponiveis, n -> 1);
+    }
+
+    @Override
+    public List<Livro> buscarDisponiveisPorAutor(String autor) {
+        return buscarDisponiveisPorAutor.medir(() -> delegate.buscarDisponiveisPorAutor(autor), List::size);
+    }
+
+    @Override
+    public List<Livro> buscarPorAutor(String autor) {
+        return buscarPorAutor.medir(() -> delegate.buscarPorAutor(autor), List::size);
+    }
+
+    @Override
+    public List<Livro> buscarPorTitulo(String titulo) {
+        return buscarPorTitulo.medir(() -> delegate.buscarPorTitulo(titulo), List::size);
+    }
+}
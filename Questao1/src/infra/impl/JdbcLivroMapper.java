@@ -1,32 +1,43 @@
 package infra.impl;
 
+import domain.DataMapper.AlteracaoLivro;
+import domain.DataMapper.ConflitoLivroException;
 import domain.DataMapper.Livro;
 import infra.LivroMapper;
+import infra.importacao.Isbn;
 
+import javax.sql.DataSource;
 import java.sql.*;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class JdbcLivroMapper implements LivroMapper {
-    private Connection connection;
+    private static final int TAMANHO_BLOCO_IN = 512;
+    private static final int LINHAS_POR_FETCH = 500;
 
-    public JdbcLivroMapper(Connection connection) {
-        this.connection = connection;
+    // Conexão obtida por operação (ex.: infra.pool.PoolConexoes), nunca compartilhada entre threads
+    private final DataSource dataSource;
+
+    public JdbcLivroMapper(DataSource dataSource) {
+        this.dataSource = dataSource;
     }
 
     @Override
     public void insert(Livro livro) {
         String sql = "INSERT INTO livros (titulo, autor, isbn, disponivel) VALUES (?, ?, ?, ?)";
-        try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             stmt.setString(1, livro.getTitulo());
             stmt.setString(2, livro.getAutor());
-            stmt.setString(3, livro.getIsbn());
+            stmt.setString(3, Isbn.chave(livro.getIsbn()));
             stmt.setBoolean(4, livro.isDisponivel());
             stmt.executeUpdate();
 
             ResultSet rs = stmt.getGeneratedKeys();
             if (rs.next()) {
-                // não alteramos o livro diretamente (imutabilidade do domínio)
-                System.out.println("Livro persistido com id: " + rs.getLong(1));
+                livro.atribuirId(rs.getLong(1)); // o objeto sai do mapper com identidade
             }
         } catch (SQLException e) {
             throw new RuntimeException("Erro ao inserir livro", e);
@@ -36,10 +47,11 @@ public class JdbcLivroMapper implements LivroMapper {
     @Override
     public void update(Livro livro) {
         String sql = "UPDATE livros SET titulo=?, autor=?, isbn=?, disponivel=? WHERE id=?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, livro.getTitulo());
             stmt.setString(2, livro.getAutor());
-            stmt.setString(3, livro.getIsbn());
+            stmt.setString(3, Isbn.chave(livro.getIsbn()));
             stmt.setBoolean(4, livro.isDisponivel());
             stmt.setLong(5, livro.getId());
             stmt.executeUpdate();
@@ -48,10 +60,62 @@ public class JdbcLivroMapper implements LivroMapper {
         }
     }
 
+    @Override
+    public void updateAll(Collection<Livro> livros) {
+        if (livros.isEmpty()) {
+            return;
+        }
+        String sql = "UPDATE livros SET titulo=?, autor=?, isbn=?, disponivel=? WHERE id=?";
+        try (Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                connection.setAutoCommit(false);
+                for (Livro livro : livros) {
+                    stmt.setString(1, livro.getTitulo());
+                    stmt.setString(2, livro.getAutor());
+                    stmt.setString(3, Isbn.chave(livro.getIsbn()));
+                    stmt.setBoolean(4, livro.isDisponivel());
+                    stmt.setLong(5, livro.getId());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao atualizar lote de livros", e);
+        }
+    }
+
+    // Todas as colunas lidas entram no WHERE; se algum livro mudou desde a leitura, nada é gravado
+    @Override
+    public void updateAllIfUnchanged(Collection<AlteracaoLivro> alteracoes) {
+        if (alteracoes.isEmpty()) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            try {
+                connection.setAutoCommit(false);
+                List<Long> conflitos = AtualizacaoOtimista.executar(connection, alteracoes);
+                if (!conflitos.isEmpty()) {
+                    throw new ConflitoLivroException(conflitos); // desfeito no catch
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao atualizar lote de livros", e);
+        }
+    }
+
     @Override
     public void delete(Long id) {
         String sql = "DELETE FROM livros WHERE id=?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, id);
             stmt.executeUpdate();
         } catch (SQLException e) {
@@ -59,10 +123,35 @@ public class JdbcLivroMapper implements LivroMapper {
         }
     }
 
+    // Uma ida ao banco; a linha só muda se ainda estiver no estado esperado
+    @Override
+    public boolean borrowIfAvailable(Long id) {
+        return atualizarDisponibilidade(id, false, "Erro ao emprestar livro");
+    }
+
+    @Override
+    public boolean returnIfBorrowed(Long id) {
+        return atualizarDisponibilidade(id, true, "Erro ao devolver livro");
+    }
+
+    private boolean atualizarDisponibilidade(Long id, boolean disponivel, String mensagemErro) {
+        String sql = "UPDATE livros SET disponivel=? WHERE id=? AND disponivel=?";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setBoolean(1, disponivel);
+            stmt.setLong(2, id);
+            stmt.setBoolean(3, !disponivel);
+            return stmt.executeUpdate() == 1;
+        } catch (SQLException e) {
+            throw new RuntimeException(mensagemErro, e);
+        }
+    }
+
     @Override
     public Optional<Livro> findById(Long id) {
         String sql = "SELECT * FROM livros WHERE id=?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, id);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
@@ -74,19 +163,143 @@ public class JdbcLivroMapper implements LivroMapper {
         }
     }
 
+    @Override
+    public List<Livro> findByIds(Collection<Long> ids) {
+        List<Long> todos = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<Livro> livros = new ArrayList<>(todos.size());
+        if (todos.isEmpty()) {
+            return livros;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            for (int inicio = 0; inicio < todos.size(); inicio += TAMANHO_BLOCO_IN) {
+                List<Long> bloco = todos.subList(inicio, Math.min(inicio + TAMANHO_BLOCO_IN, todos.size()));
+
+                // Potência de 2 de "?" (repetindo o último id): poucas variações no cache de statements
+                int parametros = bloco.size() == 1 ? 1 : Integer.highestOneBit(bloco.size() - 1) << 1;
+                String sql = "SELECT * FROM livros WHERE id IN ("
+                        + String.join(", ", Collections.nCopies(parametros, "?")) + ")";
+                try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                    for (int i = 0; i < parametros; i++) {
+                        stmt.setLong(i + 1, bloco.get(Math.min(i, bloco.size() - 1)));
+                    }
+                    ResultSet rs = stmt.executeQuery();
+                    while (rs.next()) {
+                        livros.add(mapRow(rs));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao buscar livros por ids", e);
+        }
+        return livros;
+    }
+
     @Override
     public List<Livro> findAll() {
+        try (Stream<Livro> livros = streamAll()) {
+            return livros.collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+        }
+    }
+
+    /*
+     * Varredura do catálogo com memória constante: cursor forward-only/read-only, lido em
+     * blocos de LINHAS_POR_FETCH linhas. O autocommit fica desligado enquanto o cursor está
+     * aberto (alguns drivers, como o do PostgreSQL, só respeitam o fetch size assim) e é
+     * restaurado no close(), que devolve a conexão.
+     */
+    @Override
+    public Stream<Livro> streamAll() {
         String sql = "SELECT * FROM livros";
-        List<Livro> livros = new ArrayList<>();
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                livros.add(mapRow(rs));
-            }
+        Connection connection = null;
+        PreparedStatement stmt = null;
+        boolean autoCommit = true;
+        try {
+            connection = dataSource.getConnection();
+            autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            stmt = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(LINHAS_POR_FETCH);
+            Cursor cursor = new Cursor(connection, stmt, stmt.executeQuery(), autoCommit);
+            return StreamSupport.stream(cursor, false).onClose(cursor::fechar);
         } catch (SQLException e) {
+            fecharSilenciosamente(connection, stmt, autoCommit);
             throw new RuntimeException("Erro ao buscar livros", e);
         }
-        return livros;
+    }
+
+    // Spliterator sobre o ResultSet aberto; cada tryAdvance lê uma linha
+    private final class Cursor extends Spliterators.AbstractSpliterator<Livro> {
+        private final Connection connection;
+        private final PreparedStatement stmt;
+        private final ResultSet rs;
+        private final boolean autoCommitOriginal;
+
+        Cursor(Connection connection, PreparedStatement stmt, ResultSet rs, boolean autoCommitOriginal) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.connection = connection;
+            this.stmt = stmt;
+            this.rs = rs;
+            this.autoCommitOriginal = autoCommitOriginal;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Livro> acao) {
+            try {
+                if (!rs.next()) {
+                    return false;
+                }
+                acao.accept(mapRow(rs));
+                return true;
+            } catch (SQLException e) {
+                throw new RuntimeException("Erro ao ler livros", e);
+            }
+        }
+
+        // Fecha ResultSet, statement e conexão mesmo que um deles falhe; a primeira falha é a relatada
+        void fechar() {
+            SQLException erro = null;
+            try {
+                connection.commit(); // só leitura: encerra a transação aberta para o cursor
+                connection.setAutoCommit(autoCommitOriginal);
+            } catch (SQLException e) {
+                erro = e;
+            }
+            erro = executarAcumulando(rs::close, erro);
+            erro = executarAcumulando(stmt::close, erro);
+            erro = executarAcumulando(connection::close, erro);
+            if (erro != null) {
+                throw new RuntimeException("Erro ao fechar cursor de livros", erro);
+            }
+        }
+    }
+
+    private interface AcaoJdbc {
+        void executar() throws SQLException;
+    }
+
+    // Executa a ação e acumula a falha: a primeira prevalece, as seguintes ficam suprimidas nela
+    private static SQLException executarAcumulando(AcaoJdbc acao, SQLException erroAnterior) {
+        try {
+            acao.executar();
+            return erroAnterior;
+        } catch (SQLException e) {
+            if (erroAnterior == null) {
+                return e;
+            }
+            erroAnterior.addSuppressed(e);
+            return erroAnterior;
+        }
+    }
+
+    // Falha ao abrir o cursor: libera o que já foi obtido; a exceção original é a que interessa
+    private static void fecharSilenciosamente(Connection connection, Statement stmt, boolean autoCommit) {
+        if (stmt != null) {
+            executarAcumulando(stmt::close, null);
+        }
+        if (connection != null) {
+            executarAcumulando(() -> connection.setAutoCommit(autoCommit), null);
+            executarAcumulando(connection::close, null);
+        }
     }
 
     private Livro mapRow(ResultSet rs) throws SQLException {
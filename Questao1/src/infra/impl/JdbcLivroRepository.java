@@ -1,16 +1,24 @@
 package infra.impl;
 
+import domain.DataMapper.AlteracaoLivro;
+import domain.DataMapper.ConflitoLivroException;
 import domain.DataMapper.Livro;
+import domain.DataMapper.LivroDuplicadoException;
 import domain.repository.LivroRepository;
+import infra.importacao.Isbn;
 
+import javax.sql.DataSource;
 import java.sql.*;
 import java.util.*;
 
 public class JdbcLivroRepository implements LivroRepository {
-    private final Connection connection;
+    private static final int TAMANHO_BLOCO_IN = 512;
 
-    public JdbcLivroRepository(Connection connection) {
-        this.connection = connection;
+    // Conexão obtida por operação (ex.: infra.pool.PoolConexoes), nunca compartilhada entre threads
+    private final DataSource dataSource;
+
+    public JdbcLivroRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
     }
 
     @Override
@@ -24,40 +32,149 @@ public class JdbcLivroRepository implements LivroRepository {
 
     private void inserir(Livro livro) {
         String sql = "INSERT INTO livros (titulo, autor, isbn, disponivel) VALUES (?, ?, ?, ?)";
-        try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             stmt.setString(1, livro.getTitulo());
             stmt.setString(2, livro.getAutor());
-            stmt.setString(3, livro.getIsbn());
+            stmt.setString(3, Isbn.chave(livro.getIsbn()));
             stmt.setBoolean(4, livro.isDisponivel());
             stmt.executeUpdate();
 
             ResultSet rs = stmt.getGeneratedKeys();
             if (rs.next()) {
-                System.out.println("Livro inserido com id " + rs.getLong(1));
+                livro.atribuirId(rs.getLong(1)); // o agregado sai do repositório com identidade
             }
         } catch (SQLException e) {
-            throw new RuntimeException("Erro ao inserir livro", e);
+            throw erroGravacao(livro, "Erro ao inserir livro", e);
         }
     }
 
     private void atualizar(Livro livro) {
         String sql = "UPDATE livros SET titulo=?, autor=?, isbn=?, disponivel=? WHERE id=?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, livro.getTitulo());
             stmt.setString(2, livro.getAutor());
-            stmt.setString(3, livro.getIsbn());
+            stmt.setString(3, Isbn.chave(livro.getIsbn()));
             stmt.setBoolean(4, livro.isDisponivel());
             stmt.setLong(5, livro.getId());
             stmt.executeUpdate();
         } catch (SQLException e) {
-            throw new RuntimeException("Erro ao atualizar livro", e);
+            throw erroGravacao(livro, "Erro ao atualizar livro", e);
+        }
+    }
+
+    // Classe SQLState 23 (violação de integridade): a única restrição além da chave é o índice único em isbn
+    private static RuntimeException erroGravacao(Livro livro, String mensagem, SQLException e) {
+        if (e.getSQLState() != null && e.getSQLState().startsWith("23") && livro.getIsbn() != null) {
+            return new LivroDuplicadoException(Isbn.chave(livro.getIsbn()), e);
+        }
+        return new RuntimeException(mensagem, e);
+    }
+
+    // Um batch de INSERT e um de UPDATE na mesma transação; ids só são atribuídos após o commit
+    @Override
+    public void salvarTodos(Collection<Livro> livros) {
+        List<Livro> novos = new ArrayList<>();
+        List<Livro> existentes = new ArrayList<>();
+        for (Livro livro : livros) {
+            (livro.getId() == null ? novos : existentes).add(livro);
+        }
+        if (novos.isEmpty() && existentes.isEmpty()) {
+            return;
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            try {
+                connection.setAutoCommit(false);
+                List<Long> ids = inserirEmLote(connection, novos);
+                atualizarEmLote(connection, existentes);
+                connection.commit();
+
+                for (int i = 0; i < novos.size(); i++) {
+                    novos.get(i).atribuirId(ids.get(i));
+                }
+            } catch (SQLException | RuntimeException e) {
+                desfazer(connection);
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao salvar lote de livros", e);
+        }
+    }
+
+    // Todas as colunas lidas entram no WHERE; se algum livro mudou desde a leitura, nada é gravado
+    @Override
+    public void atualizarSeInalterados(Collection<AlteracaoLivro> alteracoes) {
+        if (alteracoes.isEmpty()) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            try {
+                connection.setAutoCommit(false);
+                List<Long> conflitos = AtualizacaoOtimista.executar(connection, alteracoes);
+                if (!conflitos.isEmpty()) {
+                    throw new ConflitoLivroException(conflitos); // desfeito no catch
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                desfazer(connection);
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao atualizar lote de livros", e);
+        }
+    }
+
+    private List<Long> inserirEmLote(Connection connection, List<Livro> novos) throws SQLException {
+        List<Long> ids = new ArrayList<>(novos.size());
+        if (novos.isEmpty()) {
+            return ids;
+        }
+        String sql = "INSERT INTO livros (titulo, autor, isbn, disponivel) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            for (Livro livro : novos) {
+                stmt.setString(1, livro.getTitulo());
+                stmt.setString(2, livro.getAutor());
+                stmt.setString(3, Isbn.chave(livro.getIsbn()));
+                stmt.setBoolean(4, livro.isDisponivel());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            ResultSet rs = stmt.getGeneratedKeys();
+            while (rs.next()) {
+                ids.add(rs.getLong(1));
+            }
+        }
+        if (ids.size() != novos.size()) {
+            throw new SQLException("Driver devolveu " + ids.size() + " ids para " + novos.size() + " livros");
+        }
+        return ids;
+    }
+
+    private void atualizarEmLote(Connection connection, List<Livro> existentes) throws SQLException {
+        if (existentes.isEmpty()) {
+            return;
+        }
+        String sql = "UPDATE livros SET titulo=?, autor=?, isbn=?, disponivel=? WHERE id=?";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (Livro livro : existentes) {
+                stmt.setString(1, livro.getTitulo());
+                stmt.setString(2, livro.getAutor());
+                stmt.setString(3, Isbn.chave(livro.getIsbn()));
+                stmt.setBoolean(4, livro.isDisponivel());
+                stmt.setLong(5, livro.getId());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
         }
     }
 
     @Override
     public void remover(Livro livro) {
         String sql = "DELETE FROM livros WHERE id=?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, livro.getId());
             stmt.executeUpdate();
         } catch (SQLException e) {
@@ -65,10 +182,36 @@ public class JdbcLivroRepository implements LivroRepository {
         }
     }
 
+    // A regra de Livro.emprestar() vira condição do UPDATE: uma ida ao banco e sem corrida
+    // entre dois balcões, porque só um UPDATE encontra a linha ainda disponível
+    @Override
+    public boolean emprestarSeDisponivel(Long id) {
+        return atualizarDisponibilidade(id, false, "Erro ao emprestar livro");
+    }
+
+    @Override
+    public boolean devolverSeEmprestado(Long id) {
+        return atualizarDisponibilidade(id, true, "Erro ao devolver livro");
+    }
+
+    private boolean atualizarDisponibilidade(Long id, boolean disponivel, String mensagemErro) {
+        String sql = "UPDATE livros SET disponivel=? WHERE id=? AND disponivel=?";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setBoolean(1, disponivel);
+            stmt.setLong(2, id);
+            stmt.setBoolean(3, !disponivel);
+            return stmt.executeUpdate() == 1;
+        } catch (SQLException e) {
+            throw new RuntimeException(mensagemErro, e);
+        }
+    }
+
     @Override
     public Optional<Livro> buscarPorId(Long id) {
         String sql = "SELECT * FROM livros WHERE id=?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, id);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) return Optional.of(mapRow(rs));
@@ -78,6 +221,55 @@ public class JdbcLivroRepository implements LivroRepository {
         }
     }
 
+    /*
+     * Toda gravação guarda o ISBN na forma canônica (Isbn.chave), então a busca é uma igualdade
+     * simples sobre a coluna, atendida pelo índice em isbn. Linhas gravadas com hífens antes
+     * dessa regra precisam ser normalizadas uma vez para continuarem sendo encontradas.
+     */
+    @Override
+    public Optional<Livro> buscarPorIsbn(String isbn) {
+        String sql = "SELECT * FROM livros WHERE isbn=? ORDER BY id LIMIT 1";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, Isbn.chave(isbn));
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) return Optional.of(mapRow(rs));
+            return Optional.empty();
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao buscar livro por ISBN", e);
+        }
+    }
+
+    // Uma consulta "IN (...)" por bloco de até TAMANHO_BLOCO_IN ids; ids inexistentes são ignorados
+    @Override
+    public List<Livro> buscarPorIds(Collection<Long> ids) {
+        List<Long> todos = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<Livro> livros = new ArrayList<>(todos.size());
+        if (todos.isEmpty()) {
+            return livros;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            for (int inicio = 0; inicio < todos.size(); inicio += TAMANHO_BLOCO_IN) {
+                List<Long> bloco = todos.subList(inicio, Math.min(inicio + TAMANHO_BLOCO_IN, todos.size()));
+
+                // Potência de 2 de "?" (repetindo o último id): poucas variações no cache de statements
+                int parametros = bloco.size() == 1 ? 1 : Integer.highestOneBit(bloco.size() - 1) << 1;
+                String sql = "SELECT * FROM livros WHERE id IN ("
+                        + String.join(", ", Collections.nCopies(parametros, "?")) + ")";
+                try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                    for (int i = 0; i < parametros; i++) {
+                        stmt.setLong(i + 1, bloco.get(Math.min(i, bloco.size() - 1)));
+                    }
+                    ResultSet rs = stmt.executeQuery();
+                    while (rs.next()) livros.add(mapRow(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao buscar livros por ids", e);
+        }
+        return livros;
+    }
+
     @Override
     public List<Livro> buscarTodos() {
         String sql = "SELECT * FROM livros";
@@ -90,11 +282,59 @@ public class JdbcLivroRepository implements LivroRepository {
         return executarConsulta(sql);
     }
 
+    @Override
+    public List<Livro> buscarDisponiveis(Long aposId, int limite) {
+        if (limite < 0) {
+            throw new IllegalArgumentException("Limite da página não pode ser negativo: " + limite);
+        }
+        List<Livro> livros = new ArrayList<>();
+        String sql = "SELECT * FROM livros WHERE disponivel=true AND id > ? ORDER BY id LIMIT ?";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, aposId == null ? 0L : aposId);
+            stmt.setInt(2, limite);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) livros.add(mapRow(rs));
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao buscar página de livros disponíveis", e);
+        }
+        return livros;
+    }
+
+    @Override
+    public long contarDisponiveis() {
+        String sql = "SELECT COUNT(*) FROM livros WHERE disponivel=true";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao contar livros disponíveis", e);
+        }
+    }
+
+    @Override
+    public List<Livro> buscarDisponiveisPorAutor(String autor) {
+        List<Livro> livros = new ArrayList<>();
+        String sql = "SELECT * FROM livros WHERE disponivel=true AND autor LIKE ?";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, "%" + autor + "%");
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) livros.add(mapRow(rs));
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao buscar livros disponíveis por autor", e);
+        }
+        return livros;
+    }
+
     @Override
     public List<Livro> buscarPorAutor(String autor) {
         List<Livro> livros = new ArrayList<>();
         String sql = "SELECT * FROM livros WHERE autor LIKE ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, "%" + autor + "%");
             ResultSet rs = stmt.executeQuery();
             while (rs.next()) livros.add(mapRow(rs));
@@ -104,10 +344,26 @@ public class JdbcLivroRepository implements LivroRepository {
         return livros;
     }
 
+    @Override
+    public List<Livro> buscarPorTitulo(String titulo) {
+        List<Livro> livros = new ArrayList<>();
+        String sql = "SELECT * FROM livros WHERE titulo LIKE ?";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, "%" + titulo + "%");
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) livros.add(mapRow(rs));
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao buscar livros por título", e);
+        }
+        return livros;
+    }
+
     private List<Livro> executarConsulta(String sql) {
         List<Livro> livros = new ArrayList<>();
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql); // passa pelo cache de statements
+             ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) livros.add(mapRow(rs));
         } catch (SQLException e) {
             throw new RuntimeException("Erro ao buscar livros", e);
@@ -115,6 +371,14 @@ public class JdbcLivroRepository implements LivroRepository {
         return livros;
     }
 
+    private void desfazer(Connection connection) {
+        try {
+            connection.rollback();
+        } catch (SQLException rollbackEx) {
+            throw new RuntimeException("Erro no rollback", rollbackEx);
+        }
+    }
+
     private Livro mapRow(ResultSet rs) throws SQLException {
         return new Livro(
                 rs.getLong("id"),
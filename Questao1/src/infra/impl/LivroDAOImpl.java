@@ -2,23 +2,34 @@ package infra.impl;
 
 import domain.DAO.Livro;
 import infra.LivroDAO;
+import infra.importacao.Isbn;
 
+import javax.sql.DataSource;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public class LivroDAOImpl implements LivroDAO {
-    private Connection connection;
+    private static final int LINHAS_POR_FETCH = 500;
+
+    // Conexão obtida por operação (ex.: infra.pool.PoolConexoes), nunca compartilhada entre threads
+    private final DataSource dataSource;
+
+    public LivroDAOImpl(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
 
     @Override
     public void salvar(Livro livro) throws SQLException {
         String sql = "INSERT INTO livros (titulo, autor, isbn, disponivel) VALUES (?, ?, ?, ?)";
         // SQL + mapeamento tudo junto
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, livro.getTitulo());
             stmt.setString(2, livro.getAutor());
-            stmt.setString(3, livro.getIsbn());
+            stmt.setString(3, Isbn.chave(livro.getIsbn()));
             stmt.setBoolean(4, livro.isDisponivel());
             stmt.executeUpdate();
         }
@@ -26,47 +37,117 @@ public class LivroDAOImpl implements LivroDAO {
 
     @Override
     public void atualizar(Livro livro) {
-
+        String sql = "UPDATE livros SET titulo=?, autor=?, isbn=?, disponivel=? WHERE id=?";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, livro.getTitulo());
+            stmt.setString(2, livro.getAutor());
+            stmt.setString(3, Isbn.chave(livro.getIsbn()));
+            stmt.setBoolean(4, livro.isDisponivel());
+            stmt.setLong(5, livro.getId());
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao atualizar livro", e);
+        }
     }
 
     @Override
     public void deletar(Long id) {
-
+        String sql = "DELETE FROM livros WHERE id=?";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, id);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao deletar livro", e);
+        }
     }
 
     @Override
     public Optional<Livro> buscarPorId(Long id) {
-        return Optional.empty();
+        String sql = "SELECT * FROM livros WHERE id=?";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? Optional.of(mapear(rs)) : Optional.empty();
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao buscar livro", e);
+        }
     }
 
     @Override
     public List<Livro> buscarTodos() throws SQLException {
-        String sql = "SELECT * FROM livros";
         List<Livro> livros = new ArrayList<>();
+        paraCada(livros::add);
+        return livros;
+    }
 
-        try (Statement stmt = connection.createStatement()) {
-            ResultSet rs = stmt.executeQuery(sql);
-            while (rs.next()) {
-                // Mapeamento inline (misturado com SQL)
-                Livro livro = new Livro();
-                livro.setId(rs.getLong("id"));
-                livro.setTitulo(rs.getString("titulo"));
-                livro.setAutor(rs.getString("autor"));
-                livro.setIsbn(rs.getString("isbn"));
-                livro.setDisponivel(rs.getBoolean("disponivel"));
-                livros.add(livro);
+    /*
+     * Cursor forward-only/read-only lido em blocos de LINHAS_POR_FETCH linhas: só o bloco
+     * atual fica em memória. O autocommit fica desligado durante a leitura (alguns drivers,
+     * como o do PostgreSQL, só respeitam o fetch size assim); a conexão é desta chamada.
+     */
+    @Override
+    public void paraCada(Consumer<Livro> acao) throws SQLException {
+        String sql = "SELECT * FROM livros";
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement stmt = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setFetchSize(LINHAS_POR_FETCH);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        acao.accept(mapear(rs));
+                    }
+                }
+                connection.commit();
+            } finally {
+                connection.setAutoCommit(true);
             }
         }
-        return livros;
     }
 
     @Override
     public List<Livro> buscarPorAutor(String autor) {
-        return null;
+        String sql = "SELECT * FROM livros WHERE autor LIKE ?";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, "%" + autor + "%");
+            return listar(stmt);
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao buscar livros por autor", e);
+        }
     }
 
     @Override
     public List<Livro> buscarDisponiveis() {
-        return null;
+        String sql = "SELECT * FROM livros WHERE disponivel=true";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            return listar(stmt);
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao buscar livros disponíveis", e);
+        }
+    }
+
+    private List<Livro> listar(PreparedStatement stmt) throws SQLException {
+        List<Livro> livros = new ArrayList<>();
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                livros.add(mapear(rs));
+            }
+        }
+        return livros;
+    }
+
+    private Livro mapear(ResultSet rs) throws SQLException {
+        Livro livro = new Livro();
+        livro.setId(rs.getLong("id"));
+        livro.setTitulo(rs.getString("titulo"));
+        livro.setAutor(rs.getString("autor"));
+        livro.setIsbn(rs.getString("isbn"));
+        livro.setDisponivel(rs.getBoolean("disponivel"));
+        return livro;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,207 @@
+package infra.importacao;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Carga de catálogo em lote a partir de CSV/TSV, em streaming: só um bloco de linhas fica
+ * em memória, independentemente do tamanho do arquivo.
+ *
+ * A primeira linha é o cabeçalho, com as colunas titulo, autor e isbn (disponivel é
+ * opcional; vazio, "true", "1" ou "sim" = disponível), em qualquer ordem. Linhas sem título
+ * ou com ISBN inválido são rejeitadas e contadas; o ISBN é gravado na forma canônica.
+ * Com o índice único em livros.isbn, um ISBN repetido (no arquivo ou já cadastrado) faz o
+ * banco recusar o INSERT e a importação para, como em qualquer outra falha.
+ *
+ * Cada INSERT leva linhasPorInsert livros (VALUES (...), (...), ...) e é enviado em batch;
+ * a cada linhasPorCommit linhas há um commit e um aviso de progresso. Se algo falhar,
+ * só o bloco ainda não confirmado é desfeito.
+ *
+ * Grava direto na tabela, por fora dos repositórios: com um IndexedLivroRepository em uso,
+ * a importação deve passar por recarregarApos() (BibliotecaService.importarCatalogo já faz isso).
+ */
+public class ImportadorCatalogo {
+    public static final int LINHAS_POR_INSERT_PADRAO = 100;
+    public static final int LINHAS_POR_COMMIT_PADRAO = 10_000;
+    private static final int TAMANHO_BUFFER_LEITURA = 64 * 1024;
+
+    private final DataSource dataSource;
+    private final int linhasPorInsert;
+    private final int linhasPorCommit;
+
+    public ImportadorCatalogo(DataSource dataSource) {
+        this(dataSource, LINHAS_POR_INSERT_PADRAO, LINHAS_POR_COMMIT_PADRAO);
+    }
+
+    public ImportadorCatalogo(DataSource dataSource, int linhasPorInsert, int linhasPorCommit) {
+        if (linhasPorInsert <= 0 || linhasPorCommit < linhasPorInsert) {
+            throw new IllegalArgumentException("Tamanhos inválidos: linhasPorInsert=" + linhasPorInsert
+                    + ", linhasPorCommit=" + linhasPorCommit);
+        }
+        this.dataSource = dataSource;
+        this.linhasPorInsert = linhasPorInsert;
+        this.linhasPorCommit = linhasPorCommit;
+    }
+
+    // Separador pela extensão: .tsv usa tabulação, o resto vírgula
+    public ProgressoImportacao importar(Path arquivo, Consumer<ProgressoImportacao> progresso) {
+        boolean tsv = arquivo.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".tsv");
+        return importar(arquivo, tsv ? '\t' : ',', progresso);
+    }
+
+    public ProgressoImportacao importar(Path arquivo, char separador, Consumer<ProgressoImportacao> progresso) {
+        long inicio = System.nanoTime();
+        Bloco bloco = new Bloco(linhasPorInsert);
+        long importadas = 0;
+        long rejeitadas = 0;
+        long desdeCommit = 0;
+        long confirmadas = 0;
+
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ);
+             Connection connection = dataSource.getConnection()) {
+            LeitorDelimitado leitor = new LeitorDelimitado(canal, separador, TAMANHO_BUFFER_LEITURA);
+            Colunas colunas = Colunas.doCabecalho(leitor);
+
+            try (PreparedStatement insertCheio = connection.prepareStatement(sqlInsert(linhasPorInsert))) {
+                connection.setAutoCommit(false);
+
+                while (leitor.proximaLinha()) {
+                    String titulo = leitor.campo(colunas.titulo).trim();
+                    String isbn = Isbn.normalizar(leitor.campo(colunas.isbn));
+                    if (titulo.isEmpty() || isbn == null) {
+                        rejeitadas++;
+                        continue;
+                    }
+                    String autor = leitor.campo(colunas.autor).trim();
+                    boolean disponivel = colunas.disponivel < 0 || disponivel(leitor.campo(colunas.disponivel));
+                    bloco.adicionar(titulo, autor, isbn, disponivel);
+
+                    if (bloco.cheio()) {
+                        bloco.vincular(insertCheio);
+                        insertCheio.addBatch();
+                        importadas += bloco.tamanho;
+                        desdeCommit += bloco.tamanho;
+                        bloco.limpar();
+                    }
+                    if (desdeCommit >= linhasPorCommit) {
+                        insertCheio.executeBatch();
+                        connection.commit();
+                        confirmadas = importadas;
+                        desdeCommit = 0;
+                        progresso.accept(new ProgressoImportacao(leitor.linhasLidas() - 1, importadas, rejeitadas,
+                                Duration.ofNanos(System.nanoTime() - inicio)));
+                    }
+                }
+
+                insertCheio.executeBatch();
+                if (bloco.tamanho > 0) {
+                    try (PreparedStatement insertFinal = connection.prepareStatement(sqlInsert(bloco.tamanho))) {
+                        bloco.vincular(insertFinal);
+                        insertFinal.executeUpdate();
+                    }
+                    importadas += bloco.tamanho;
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+
+            ProgressoImportacao resultado = new ProgressoImportacao(leitor.linhasLidas() - 1, importadas, rejeitadas,
+                    Duration.ofNanos(System.nanoTime() - inicio));
+            progresso.accept(resultado);
+            return resultado;
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao importar catálogo (" + confirmadas + " livros já confirmados)", e);
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao ler arquivo de catálogo " + arquivo, e);
+        }
+    }
+
+    private static String sqlInsert(int linhas) {
+        return "INSERT INTO livros (titulo, autor, isbn, disponivel) VALUES "
+                + String.join(", ", Collections.nCopies(linhas, "(?, ?, ?, ?)"));
+    }
+
+    private static boolean disponivel(String valor) {
+        String v = valor.trim();
+        return v.isEmpty() || v.equalsIgnoreCase("true") || v.equals("1") || v.equalsIgnoreCase("sim");
+    }
+
+    // Posição de cada coluna no arquivo, lida do cabeçalho
+    private record Colunas(int titulo, int autor, int isbn, int disponivel) {
+        static Colunas doCabecalho(LeitorDelimitado leitor) throws IOException {
+            if (!leitor.proximaLinha()) {
+                throw new IllegalArgumentException("Arquivo de catálogo vazio");
+            }
+            int titulo = -1, autor = -1, isbn = -1, disponivel = -1;
+            for (int i = 0; i < leitor.quantidadeCampos(); i++) {
+                switch (leitor.campo(i).trim().toLowerCase(Locale.ROOT)) {
+                    case "titulo", "título" -> titulo = i;
+                    case "autor" -> autor = i;
+                    case "isbn" -> isbn = i;
+                    case "disponivel", "disponível" -> disponivel = i;
+                    default -> { } // colunas extras são ignoradas
+                }
+            }
+            if (titulo < 0 || autor < 0 || isbn < 0) {
+                throw new IllegalArgumentException("Cabeçalho deve ter as colunas titulo, autor e isbn");
+            }
+            return new Colunas(titulo, autor, isbn, disponivel);
+        }
+    }
+
+    // Linhas já validadas à espera do próximo INSERT de várias linhas (arrays reaproveitados)
+    private static final class Bloco {
+        private final String[] titulos;
+        private final String[] autores;
+        private final String[] isbns;
+        private final boolean[] disponiveis;
+        private int tamanho;
+
+        Bloco(int capacidade) {
+            titulos = new String[capacidade];
+            autores = new String[capacidade];
+            isbns = new String[capacidade];
+            disponiveis = new boolean[capacidade];
+        }
+
+        void adicionar(String titulo, String autor, String isbn, boolean disponivel) {
+            titulos[tamanho] = titulo;
+            autores[tamanho] = autor;
+            isbns[tamanho] = isbn;
+            disponiveis[tamanho] = disponivel;
+            tamanho++;
+        }
+
+        boolean cheio() { return tamanho == titulos.length; }
+
+        void vincular(PreparedStatement stmt) throws SQLException {
+            for (int i = 0; i < tamanho; i++) {
+                int p = i * 4;
+                stmt.setString(p + 1, titulos[i]);
+                stmt.setString(p + 2, autores[i]);
+                stmt.setString(p + 3, isbns[i]);
+                stmt.setBoolean(p + 4, disponiveis[i]);
+            }
+        }
+
+        void limpar() {
+            Arrays.fill(titulos, 0, tamanho, null);
+            Arrays.fill(autores, 0, tamanho, null);
+            Arrays.fill(isbns, 0, tamanho, null);
+            tamanho = 0;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package infra.importacao;
+
+// Validação de ISBN-10 e ISBN-13 pelos dígitos verificadores
+public final class Isbn {
+    private Isbn() {}
+
+    // Forma canônica (sem hífens e espaços, 'X' maiúsculo), ou null se o ISBN for inválido
+    public static String normalizar(String bruto) {
+        if (bruto == null) {
+            return null;
+        }
+        StringBuilder digitos = new StringBuilder(13);
+        for (int i = 0; i < bruto.length(); i++) {
+            char c = bruto.charAt(i);
+            if (c == '-' || c == ' ') {
+                continue;
+            }
+            if (digitos.length() == 13) {
+                return null;
+            }
+            digitos.append(c == 'x' ? 'X' : c);
+        }
+        String isbn = digitos.toString();
+        if (isbn.length() == 10) {
+            return isbn10Valido(isbn) ? isbn : null;
+        }
+        if (isbn.length() == 13) {
+            return isbn13Valido(isbn) ? isbn : null;
+        }
+        return null;
+    }
+
+    // Chave de comparação: a forma canônica quando válido, senão o texto como veio
+    public static String chave(String bruto) {
+        String canonico = normalizar(bruto);
+        return canonico != null ? canonico : bruto;
+    }
+
+    public static boolean valido(String bruto) {
+        return normalizar(bruto) != null;
+    }
+
+    // Soma ponderada de 10 a 1 divisível por 11; o último dígito pode ser X (= 10)
+    private static boolean isbn10Valido(String isbn) {
+        int soma = 0;
+        for (int i = 0; i < 10; i++) {
+            char c = isbn.charAt(i);
+            int valor;
+            if (c >= '0' && c <= '9') {
+                valor = c - '0';
+            } else if (c == 'X' && i == 9) {
+                valor = 10;
+            } else {
+                return false;
+            }
+            soma += (10 - i) * valor;
+        }
+        return soma % 11 == 0;
+    }
+
+    // Pesos alternados 1 e 3, soma divisível por 10
+    private static boolean isbn13Valido(String isbn) {
+        int soma = 0;
+        for (int i = 0; i < 13; i++) {
+            char c = isbn.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+            soma += (c - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return soma % 10 == 0;
+    }
+}
@@ -0,0 +1,151 @@
+package infra.importacao;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Leitor de CSV/TSV em UTF-8 direto dos bytes do canal, um registro por vez.
+ * Os bytes da linha ficam num buffer reaproveitado e só os campos pedidos viram String,
+ * sem String.split nem linha intermediária. Aceita campos entre aspas (com separador,
+ * quebra de linha e "" como aspas literais dentro), CRLF e BOM no início.
+ * Não é thread-safe.
+ */
+final class LeitorDelimitado {
+    private static final int MAXIMO_CAMPOS_INICIAL = 8;
+
+    private final ReadableByteChannel canal;
+    private final byte separador;
+    private final ByteBuffer buffer;
+
+    private byte[] linha = new byte[256];
+    private int tamanhoLinha;
+    private int[] inicios = new int[MAXIMO_CAMPOS_INICIAL];
+    private int[] fins = new int[MAXIMO_CAMPOS_INICIAL];
+    private int campos;
+    private long linhasLidas;
+    private boolean inicioDoArquivo = true;
+    private boolean fimDoArquivo;
+
+    LeitorDelimitado(ReadableByteChannel canal, char separador, int tamanhoBuffer) {
+        this.canal = canal;
+        this.separador = (byte) separador;
+        this.buffer = ByteBuffer.allocate(tamanhoBuffer);
+        this.buffer.flip(); // começa vazio
+    }
+
+    // Avança para o próximo registro não vazio; false no fim do arquivo
+    boolean proximaLinha() throws IOException {
+        while (true) {
+            if (!lerRegistro()) {
+                return false;
+            }
+            if (campos > 1 || fins[0] > inicios[0]) {
+                linhasLidas++;
+                return true;
+            }
+        }
+    }
+
+    int quantidadeCampos() { return campos; }
+
+    long linhasLidas() { return linhasLidas; }
+
+    String campo(int indice) {
+        if (indice >= campos) {
+            return "";
+        }
+        return new String(linha, inicios[indice], fins[indice] - inicios[indice], StandardCharsets.UTF_8);
+    }
+
+    private boolean lerRegistro() throws IOException {
+        tamanhoLinha = 0;
+        campos = 0;
+        inicios[0] = 0;
+        boolean entreAspas = false;
+        boolean aspaPendente = false; // fechou aspas; se vier outra, era "" (aspas literais)
+        boolean leuAlgo = false;
+
+        while (true) {
+            if (!buffer.hasRemaining() && !encherBuffer()) {
+                if (!leuAlgo) {
+                    return false;
+                }
+                fecharCampo();
+                return true;
+            }
+            byte b = buffer.get();
+            leuAlgo = true;
+
+            if (aspaPendente) {
+                aspaPendente = false;
+                if (b == '"') {
+                    acrescentar(b);
+                    entreAspas = true;
+                    continue;
+                }
+            }
+            if (entreAspas) {
+                if (b == '"') {
+                    entreAspas = false;
+                    aspaPendente = true;
+                } else {
+                    acrescentar(b);
+                }
+            } else if (b == separador) {
+                fecharCampo();
+                inicios[campos] = tamanhoLinha;
+            } else if (b == '\n') {
+                fecharCampo();
+                return true;
+            } else if (b == '\r') {
+                // ignorado: o '\n' seguinte fecha a linha
+            } else if (b == '"' && tamanhoLinha == inicios[campos]) {
+                entreAspas = true;
+            } else {
+                acrescentar(b);
+            }
+        }
+    }
+
+    private boolean encherBuffer() throws IOException {
+        if (fimDoArquivo) {
+            return false;
+        }
+        buffer.clear();
+        int lidos;
+        do {
+            lidos = canal.read(buffer);
+        } while (lidos == 0);
+        buffer.flip();
+        if (lidos < 0) {
+            fimDoArquivo = true;
+            return false;
+        }
+        if (inicioDoArquivo) {
+            inicioDoArquivo = false;
+            if (buffer.remaining() >= 3 && buffer.get(0) == (byte) 0xEF
+                    && buffer.get(1) == (byte) 0xBB && buffer.get(2) == (byte) 0xBF) {
+                buffer.position(3); // BOM UTF-8
+            }
+        }
+        return buffer.hasRemaining() || encherBuffer();
+    }
+
+    private void acrescentar(byte b) {
+        if (tamanhoLinha == linha.length) {
+            linha = Arrays.copyOf(linha, linha.length * 2);
+        }
+        linha[tamanhoLinha++] = b;
+    }
+
+    private void fecharCampo() {
+        if (campos + 1 == inicios.length) {
+            inicios = Arrays.copyOf(inicios, inicios.length * 2);
+            fins = Arrays.copyOf(fins, fins.length * 2);
+        }
+        fins[campos++] = tamanhoLinha;
+    }
+}
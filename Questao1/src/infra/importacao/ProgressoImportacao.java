@@ -0,0 +1,18 @@
+package infra.importacao;
+
+import java.time.Duration;
+
+// Situação da importação no último commit (e, ao final, o resultado completo)
+public record ProgressoImportacao(long linhasLidas, long linhasImportadas, long linhasRejeitadas, Duration decorrido) {
+
+    public double getLinhasPorSegundo() {
+        double segundos = decorrido.toNanos() / 1_000_000_000.0;
+        return segundos == 0 ? 0 : linhasLidas / segundos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d lidas, %d importadas, %d rejeitadas em %d ms (%.0f linhas/s)",
+                linhasLidas, linhasImportadas, linhasRejeitadas, decorrido.toMillis(), getLinhasPorSegundo());
+    }
+}
@@ -0,0 +1,70 @@
+package infra.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Histograma de latências sem lock, em nanossegundos. Buckets log-lineares:
+ * cada potência de 2 é dividida em 16 faixas, o que dá erro relativo de no máximo
+ * ~6% nos percentis com memória fixa (~5 KB), de 1 ns a ~18 minutos.
+ */
+public final class HistogramaLatencia {
+    private static final int BITS_SUBFAIXA = 4;
+    private static final int SUBFAIXAS = 1 << BITS_SUBFAIXA;
+    private static final int EXPOENTE_MAXIMO = 40; // 2^40 ns ≈ 18 min; acima disso vai para o último bucket
+    private static final int BUCKETS = (EXPOENTE_MAXIMO - BITS_SUBFAIXA + 2) * SUBFAIXAS;
+
+    private final AtomicLongArray contagens = new AtomicLongArray(BUCKETS);
+    private final LongAccumulator maximo = new LongAccumulator(Math::max, 0);
+
+    public void registrar(long nanos) {
+        contagens.incrementAndGet(indice(Math.max(0, nanos)));
+        maximo.accumulate(nanos);
+    }
+
+    public long getMaximo() { return maximo.get(); }
+
+    // Percentil (0 < p <= 100) pelo limite superior do bucket; 0 se ainda não houve registros
+    public long percentil(double p) {
+        long[] copia = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copia[i] = contagens.get(i);
+            total += copia[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long alvo = (long) Math.ceil(total * p / 100.0);
+        long acumulado = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            acumulado += copia[i];
+            if (acumulado >= alvo) {
+                return Math.min(limiteSuperior(i), getMaximo());
+            }
+        }
+        return getMaximo();
+    }
+
+    static int indice(long valor) {
+        if (valor < SUBFAIXAS) {
+            return (int) valor;
+        }
+        int expoente = 63 - Long.numberOfLeadingZeros(valor);
+        if (expoente > EXPOENTE_MAXIMO) {
+            return BUCKETS - 1;
+        }
+        int subfaixa = (int) (valor >>> (expoente - BITS_SUBFAIXA)) & (SUBFAIXAS - 1);
+        return (expoente - BITS_SUBFAIXA + 1) * SUBFAIXAS + subfaixa;
+    }
+
+    static long limiteSuperior(int indice) {
+        if (indice < SUBFAIXAS) {
+            return indice;
+        }
+        int expoente = indice / SUBFAIXAS + BITS_SUBFAIXA - 1;
+        long subfaixa = indice % SUBFAIXAS;
+        long largura = 1L << (expoente - BITS_SUBFAIXA);
+        return (1L << expoente) + (subfaixa + 1) * largura - 1;
+    }
+}
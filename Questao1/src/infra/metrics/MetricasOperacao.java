@@ -0,0 +1,67 @@
+package infra.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+// Contadores de uma operação (ex.: "PedidoRepository.buscarPorId"); LongAdder evita disputa entre threads
+public final class MetricasOperacao {
+    private final String nome;
+    private final LongAdder chamadas = new LongAdder();
+    private final LongAdder erros = new LongAdder();
+    private final LongAdder linhas = new LongAdder();
+    private final LongAdder nanosTotais = new LongAdder();
+    private final HistogramaLatencia latencias = new HistogramaLatencia();
+
+    MetricasOperacao(String nome) {
+        this.nome = nome;
+    }
+
+    // Executa a chamada medindo a latência; linhasRetornadas conta o resultado (só em caso de sucesso)
+    public <T> T medir(Supplier<T> chamada, ToIntFunction<T> linhasRetornadas) {
+        long inicio = System.nanoTime();
+        try {
+            T resultado = chamada.get();
+            linhas.add(linhasRetornadas.applyAsInt(resultado));
+            return resultado;
+        } catch (RuntimeException | Error e) {
+            erros.increment();
+            throw e;
+        } finally {
+            registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    public void medir(Runnable chamada) {
+        medir(() -> {
+            chamada.run();
+            return null;
+        }, r -> 0);
+    }
+
+    // Para linhas entregues depois da chamada (ex.: Stream consumido sob demanda)
+    public void adicionarLinhas(long quantidade) {
+        linhas.add(quantidade);
+    }
+
+    private void registrar(long nanos) {
+        chamadas.increment();
+        nanosTotais.add(nanos);
+        latencias.registrar(nanos);
+    }
+
+    public ResumoOperacao resumo() {
+        long totalChamadas = chamadas.sum();
+        return new ResumoOperacao(
+                nome,
+                totalChamadas,
+                erros.sum(),
+                linhas.sum(),
+                totalChamadas == 0 ? 0 : nanosTotais.sum() / totalChamadas,
+                latencias.percentil(50),
+                latencias.percentil(99),
+                latencias.percentil(99.9),
+                latencias.getMaximo()
+        );
+    }
+}
@@ -0,0 +1,45 @@
+package infra.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro compartilhado pelos decorators instrumentados. Cada operação é criada uma vez;
+ * os decorators guardam a referência e não fazem lookup por chamada.
+ */
+public class RegistroMetricas {
+    private final ConcurrentHashMap<String, MetricasOperacao> operacoes = new ConcurrentHashMap<>();
+
+    public MetricasOperacao operacao(String nome) {
+        return operacoes.computeIfAbsent(nome, MetricasOperacao::new);
+    }
+
+    // Snapshot de todas as operações, em ordem alfabética
+    public List<ResumoOperacao> snapshot() {
+        List<ResumoOperacao> resumos = new ArrayList<>(operacoes.size());
+        for (MetricasOperacao metricas : operacoes.values()) {
+            resumos.add(metricas.resumo());
+        }
+        resumos.sort(Comparator.comparing(ResumoOperacao::operacao));
+        return resumos;
+    }
+
+    // Grava o snapshot em CSV (separador ';'); a troca é atômica para quem estiver lendo o arquivo
+    public void exportar(Path arquivo) throws IOException {
+        List<String> linhas = new ArrayList<>();
+        linhas.add(ResumoOperacao.CABECALHO_CSV);
+        for (ResumoOperacao resumo : snapshot()) {
+            linhas.add(resumo.comoCsv());
+        }
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        Files.write(temporario, linhas, StandardCharsets.UTF_8);
+        Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,14 @@
+package infra.metrics;
+
+// Fotografia das métricas de uma operação; latências em nanossegundos
+public record ResumoOperacao(String operacao, long chamadas, long erros, long linhas,
+                             long mediaNanos, long p50Nanos, long p99Nanos, long p999Nanos, long maximoNanos) {
+
+    static final String CABECALHO_CSV = "operacao;chamadas;erros;linhas;media_ns;p50_ns;p99_ns;p999_ns;max_ns";
+
+    String comoCsv() {
+        return String.join(";", operacao, String.valueOf(chamadas), String.valueOf(erros), String.valueOf(linhas),
+                String.valueOf(mediaNanos), String.valueOf(p50Nanos), String.valueOf(p99Nanos),
+                String.valueOf(p999Nanos), String.valueOf(maximoNanos));
+    }
+}
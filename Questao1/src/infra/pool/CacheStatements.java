@@ -0,0 +1,201 @@
+package infra.pool;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache LRU de PreparedStatement de UMA conexão física, chaveado pelo texto SQL.
+ * O close() do statement entregue só o devolve ao cache; o statement real continua
+ * preparado no servidor até ser despejado ou a conexão ser descartada.
+ * Uma conexão é usada por uma thread por vez, então o cache não precisa de sincronização.
+ */
+class CacheStatements {
+    private final Connection fisica;
+    private final int capacidade;
+    private final LongAdder acertos;
+    private final LongAdder falhas;
+
+    private final LinkedHashMap<Chave, PreparedStatement> cache;
+    private final Map<PreparedStatement, StatementEmUso> emUso = new IdentityHashMap<>();
+
+    CacheStatements(Connection fisica, int capacidade, LongAdder acertos, LongAdder falhas) {
+        this.fisica = fisica;
+        this.capacidade = capacidade;
+        this.acertos = acertos;
+        this.falhas = falhas;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Chave, PreparedStatement> maisAntigo) {
+                if (size() <= CacheStatements.this.capacidade) {
+                    return false;
+                }
+                // Em uso: será fechado quando o chamador devolver (não está mais no cache)
+                if (!emUso.containsKey(maisAntigo.getValue())) {
+                    fecharSilenciosamente(maisAntigo.getValue());
+                }
+                return true;
+            }
+        };
+    }
+
+    PreparedStatement preparar(String sql, int chavesGeradas) throws SQLException {
+        Chave chave = new Chave(sql, chavesGeradas);
+        PreparedStatement real = cache.get(chave);
+
+        if (real != null && !emUso.containsKey(real) && !real.isClosed()) {
+            acertos.increment();
+        } else {
+            falhas.increment();
+            PreparedStatement novo = fisica.prepareStatement(sql, chavesGeradas);
+            // Mesmo SQL já em uso nesta conexão: o novo não entra no cache
+            if (real == null || !emUso.containsKey(real)) {
+                cache.put(chave, novo);
+            }
+            real = novo;
+        }
+
+        StatementEmUso handler = new StatementEmUso(chave, real);
+        emUso.put(real, handler);
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                handler);
+    }
+
+    // Conexão devolvida ao pool: libera statements que o chamador esqueceu abertos
+    void liberarTodos() {
+        for (StatementEmUso handler : new ArrayList<>(emUso.values())) {
+            handler.devolver();
+        }
+    }
+
+    void fecharTodos() {
+        liberarTodos();
+        for (PreparedStatement stmt : cache.values()) {
+            fecharSilenciosamente(stmt);
+        }
+        cache.clear();
+    }
+
+    private static void fecharSilenciosamente(Statement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException ignorada) {
+            // statement já inutilizável
+        }
+    }
+
+    // Visão lógica de um statement em cache: close() reinicia o estado e devolve
+    private class StatementEmUso implements InvocationHandler {
+        private final Chave chave;
+        private final PreparedStatement real;
+        private final List<ResultSet> resultados = new ArrayList<>();
+        private boolean configurado;
+        private boolean devolvido;
+
+        StatementEmUso(Chave chave, PreparedStatement real) {
+            this.chave = chave;
+            this.real = real;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    devolver();
+                    return null;
+                case "isClosed":
+                    return devolvido || real.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "StatementEmCache[" + chave.sql + "]";
+                default:
+                    if (devolvido) {
+                        throw new SQLException("Statement já fechado");
+                    }
+                    if (method.getName().equals("setFetchSize") || method.getName().equals("setMaxRows")
+                            || method.getName().equals("setQueryTimeout")) {
+                        configurado = true;
+                    }
+                    Object resultado;
+                    try {
+                        resultado = method.invoke(real, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (resultado instanceof ResultSet) {
+                        resultados.add((ResultSet) resultado);
+                    }
+                    return resultado;
+            }
+        }
+
+        void devolver() {
+            if (devolvido) {
+                return;
+            }
+            devolvido = true;
+            emUso.remove(real);
+
+            try {
+                for (ResultSet rs : resultados) {
+                    rs.close();
+                }
+                if (cache.get(chave) != real) {
+                    real.close(); // despejado ou fora do cache
+                    return;
+                }
+                real.clearParameters();
+                real.clearBatch();
+                if (configurado) {
+                    real.setFetchSize(0);
+                    real.setMaxRows(0);
+                    real.setQueryTimeout(0);
+                }
+            } catch (SQLException e) {
+                // Estado desconhecido: tira do cache para não reaproveitar
+                cache.remove(chave, real);
+                fecharSilenciosamente(real);
+            }
+        }
+    }
+
+    private static final class Chave {
+        private final String sql;
+        private final int chavesGeradas;
+
+        Chave(String sql, int chavesGeradas) {
+            this.sql = sql;
+            this.chavesGeradas = chavesGeradas;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Chave)) return false;
+            Chave outra = (Chave) o;
+            return chavesGeradas == outra.chavesGeradas && sql.equals(outra.sql);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sql, chavesGeradas);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package infra.pool;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+// Cria conexões físicas para o pool (ex.: () -> DriverManager.getConnection(url, usuario, senha))
+@FunctionalInterface
+public interface FabricaConexao {
+    Connection criar() throws SQLException;
+}
@@ -0,0 +1,347 @@
+package infra.pool;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pool de conexões leve exposto como DataSource.
+ * Cada operação dos repositórios pega uma conexão, usa e devolve com close(),
+ * então threads diferentes nunca compartilham a mesma transação.
+ * Cada conexão física mantém seu próprio cache de PreparedStatement (ver CacheStatements).
+ * O pool mantém ao menos {@code minimo} conexões físicas abertas: as que são descartadas
+ * (fechadas pelo banco ou com erro na devolução) são repostas em segundo plano.
+ */
+public class PoolConexoes implements DataSource, AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(PoolConexoes.class.getName());
+    private static final int TAMANHO_CACHE_STATEMENTS_PADRAO = 64;
+
+    private final FabricaConexao fabrica;
+    private final int minimo;
+    private final int maximo;
+    private final Duration timeoutAquisicao;
+    private final Duration limiteVazamento;
+    private final int tamanhoCacheStatements;
+
+    private final LinkedBlockingDeque<ConexaoFisica> ociosas = new LinkedBlockingDeque<>();
+    private final Semaphore permissoes;
+    private final AtomicInteger criadas = new AtomicInteger();
+    private final LongAdder acertosCache = new LongAdder();
+    private final LongAdder falhasCache = new LongAdder();
+    private final Map<Connection, Emprestimo> emprestadas = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService manutencao; // detecção de vazamentos e reposição do mínimo
+    private volatile boolean fechado;
+
+    public PoolConexoes(FabricaConexao fabrica, int minimo, int maximo,
+                        Duration timeoutAquisicao, Duration limiteVazamento) throws SQLException {
+        this(fabrica, minimo, maximo, timeoutAquisicao, limiteVazamento, TAMANHO_CACHE_STATEMENTS_PADRAO);
+    }
+
+    public PoolConexoes(FabricaConexao fabrica, int minimo, int maximo,
+                        Duration timeoutAquisicao, Duration limiteVazamento,
+                        int tamanhoCacheStatements) throws SQLException {
+        if (minimo < 0 || maximo <= 0 || minimo > maximo) {
+            throw new IllegalArgumentException("Tamanhos inválidos: mínimo=" + minimo + ", máximo=" + maximo);
+        }
+        this.fabrica = fabrica;
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.timeoutAquisicao = timeoutAquisicao;
+        this.limiteVazamento = limiteVazamento;
+        this.tamanhoCacheStatements = tamanhoCacheStatements;
+        this.permissoes = new Semaphore(maximo, true);
+
+        // Pré-aquece o mínimo de conexões; descartes posteriores são repostos por reporMinimo
+        for (int i = 0; i < minimo; i++) {
+            ociosas.offer(criarFisica());
+        }
+
+        this.manutencao = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pool-conexoes-manutencao");
+            t.setDaemon(true);
+            return t;
+        });
+        long periodo = Math.max(1, limiteVazamento.toMillis() / 2);
+        manutencao.scheduleAtFixedRate(this::verificarVazamentos, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (fechado) {
+            throw new SQLException("Pool de conexões fechado");
+        }
+
+        try {
+            if (!permissoes.tryAcquire(timeoutAquisicao.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("Tempo esgotado aguardando conexão do pool ("
+                        + timeoutAquisicao.toMillis() + " ms, máximo " + maximo + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrompido aguardando conexão do pool", e);
+        }
+
+        try {
+            ConexaoFisica fisica = obterFisica();
+            Connection logica = embrulhar(fisica);
+            emprestadas.put(logica, new Emprestimo(System.nanoTime(), new Throwable("Conexão obtida aqui")));
+            return logica;
+        } catch (SQLException | RuntimeException e) {
+            permissoes.release();
+            throw e;
+        }
+    }
+
+    // Reaproveita uma conexão ociosa válida ou cria uma nova (a permissão já limita o total)
+    private ConexaoFisica obterFisica() throws SQLException {
+        ConexaoFisica fisica;
+        while ((fisica = ociosas.pollFirst()) != null) {
+            if (!fisica.conexao.isClosed()) {
+                return fisica;
+            }
+            descartar(fisica);
+        }
+        return criarFisica();
+    }
+
+    private ConexaoFisica criarFisica() throws SQLException {
+        ConexaoFisica fisica = abrirFisica();
+        criadas.incrementAndGet();
+        return fisica;
+    }
+
+    private ConexaoFisica abrirFisica() throws SQLException {
+        Connection conexao = fabrica.criar();
+        return new ConexaoFisica(conexao,
+                new CacheStatements(conexao, tamanhoCacheStatements, acertosCache, falhasCache));
+    }
+
+    // Devolve a conexão física ao pool, sempre em autocommit e sem transação pendente
+    private void devolver(Connection logica, ConexaoFisica fisica) {
+        emprestadas.remove(logica);
+        try {
+            fisica.statements.liberarTodos();
+            if (fechado || fisica.conexao.isClosed()) {
+                descartar(fisica);
+                return;
+            }
+            if (!fisica.conexao.getAutoCommit()) {
+                fisica.conexao.rollback();
+                fisica.conexao.setAutoCommit(true);
+            }
+            ociosas.offerFirst(fisica);
+        } catch (SQLException e) {
+            descartar(fisica);
+        } finally {
+            permissoes.release();
+        }
+    }
+
+    private void descartar(ConexaoFisica fisica) {
+        int restantes = criadas.decrementAndGet();
+        fisica.statements.fecharTodos();
+        try {
+            fisica.conexao.close();
+        } catch (SQLException ignorada) {
+            // conexão já inutilizável
+        }
+        if (restantes < minimo && !fechado) {
+            try {
+                manutencao.execute(this::reporMinimo);
+            } catch (RejectedExecutionException e) {
+                // pool fechado entre a checagem e o agendamento
+            }
+        }
+    }
+
+    // Roda na thread de manutenção: abre conexões ociosas até voltar ao mínimo.
+    // Cada vaga é reservada em "criadas" antes de abrir, para não passar do mínimo
+    // quando vários descartes agendam a reposição ao mesmo tempo.
+    private void reporMinimo() {
+        while (!fechado) {
+            int atuais = criadas.get();
+            if (atuais >= minimo) {
+                return;
+            }
+            if (!criadas.compareAndSet(atuais, atuais + 1)) {
+                continue;
+            }
+            ConexaoFisica fisica;
+            try {
+                fisica = abrirFisica();
+            } catch (SQLException e) {
+                criadas.decrementAndGet();
+                // Banco fora do ar: tenta de novo no próximo descarte; getConnection ainda abre sob demanda
+                LOGGER.log(Level.WARNING, "Falha ao repor o mínimo de conexões do pool", e);
+                return;
+            }
+            ociosas.offerLast(fisica); // as reaproveitadas (no início da fila) continuam preferidas
+            if (fechado && ociosas.remove(fisica)) {
+                descartar(fisica); // close() já esvaziou a fila
+            }
+        }
+    }
+
+    private void verificarVazamentos() {
+        long agora = System.nanoTime();
+        for (Emprestimo emprestimo : emprestadas.values()) {
+            if (!emprestimo.reportado && agora - emprestimo.inicio > limiteVazamento.toNanos()) {
+                emprestimo.reportado = true;
+                // A pilha de quem pegou a conexão vai como throwable do registro
+                LOGGER.log(Level.WARNING, "Possível vazamento: conexão emprestada há mais de "
+                        + limiteVazamento.toMillis() + " ms", emprestimo.origem);
+            }
+        }
+    }
+
+    private Connection embrulhar(ConexaoFisica fisica) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new ConexaoEmprestada(fisica));
+    }
+
+    public int getConexoesAtivas() { return emprestadas.size(); }
+    public int getConexoesOciosas() { return ociosas.size(); }
+    public int getConexoesCriadas() { return criadas.get(); }
+    public long getAcertosCacheStatements() { return acertosCache.sum(); }
+    public long getFalhasCacheStatements() { return falhasCache.sum(); }
+
+    @Override
+    public void close() {
+        fechado = true;
+        manutencao.shutdownNow();
+        ConexaoFisica fisica;
+        while ((fisica = ociosas.pollFirst()) != null) {
+            descartar(fisica);
+        }
+    }
+
+    // Conexão lógica entregue ao chamador: close() devolve ao pool em vez de fechar
+    private class ConexaoEmprestada implements InvocationHandler {
+        private final ConexaoFisica fisica;
+        private boolean devolvida;
+
+        ConexaoEmprestada(ConexaoFisica fisica) {
+            this.fisica = fisica;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!devolvida) {
+                        devolvida = true;
+                        devolver((Connection) proxy, fisica);
+                    }
+                    return null;
+                case "isClosed":
+                    return devolvida || fisica.conexao.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "ConexaoEmprestada[" + fisica.conexao + "]";
+                default:
+                    if (devolvida) {
+                        throw new SQLException("Conexão já devolvida ao pool");
+                    }
+                    if (usaCache(method, args)) {
+                        int chavesGeradas = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+                        return fisica.statements.preparar((String) args[0], chavesGeradas);
+                    }
+                    try {
+                        return method.invoke(fisica.conexao, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+
+    // prepareStatement(sql) e prepareStatement(sql, autoGeneratedKeys) passam pelo cache
+    private boolean usaCache(Method method, Object[] args) {
+        return tamanhoCacheStatements > 0
+                && method.getName().equals("prepareStatement")
+                && (args.length == 1 || (args.length == 2 && method.getParameterTypes()[1] == int.class));
+    }
+
+    private static class ConexaoFisica {
+        final Connection conexao;
+        final CacheStatements statements;
+
+        ConexaoFisica(Connection conexao, CacheStatements statements) {
+            this.conexao = conexao;
+            this.statements = statements;
+        }
+    }
+
+    private static class Emprestimo {
+        final long inicio;
+        final Throwable origem;
+        volatile boolean reportado;
+
+        Emprestimo(long inicio, Throwable origem) {
+            this.inicio = inicio;
+            this.origem = origem;
+        }
+    }
+
+    // Demais métodos de DataSource
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Credenciais são definidas pela FabricaConexao");
+    }
+
+    @Override
+    public PrintWriter getLogWriter() { return null; }
+
+    @Override
+    public void setLogWriter(PrintWriter out) { }
+
+    @Override
+    public void setLoginTimeout(int seconds) { }
+
+    @Override
+    public int getLoginTimeout() { return 0; }
+
+    @Override
+    public Logger getParentLogger() {
+        return LOGGER;
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Não é wrapper de " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
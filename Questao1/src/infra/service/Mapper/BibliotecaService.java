@@ -1,9 +1,14 @@
 package infra.service.Mapper;
 
+import domain.DataMapper.ConflitoLivroException;
 import domain.DataMapper.Livro;
 import infra.LivroMapper;
 
+import infra.uow.UnidadeDeTrabalho;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public class BibliotecaService {
     private final LivroMapper mapper;
@@ -17,18 +22,50 @@ public class BibliotecaService {
         mapper.insert(livro);
     }
 
-    public void emprestarLivro(Long id) {
-        mapper.findById(id).ifPresent(livro -> {
-            livro.emprestar(); // regra de negócio
-            mapper.update(livro); // sincroniza no banco
-        });
+    // Um UPDATE condicional: false se o livro já estava emprestado (ou não existe)
+    public boolean emprestarLivro(Long id) {
+        return mapper.borrowIfAvailable(id);
+    }
+
+    public boolean devolverLivro(Long id) {
+        return mapper.returnIfBorrowed(id);
+    }
+
+    // Carrinho inteiro numa unidade de trabalho: 1 SELECT ... IN e 1 batch de UPDATE condicional.
+    // false se algum livro já estava emprestado ou foi alterado por outro balcão: nada é gravado.
+    public boolean emprestarLivros(Collection<Long> ids) {
+        try (UnidadeDeTrabalho unidade = UnidadeDeTrabalho.sobre(mapper)) {
+            unidade.carregar(ids);
+            for (Long id : ids) {
+                Optional<Livro> livro = unidade.buscar(id);
+                if (livro.isPresent() && !livro.get().isDisponivel()) {
+                    return false;
+                }
+                livro.ifPresent(Livro::emprestar);
+            }
+            unidade.concluir();
+            return true;
+        } catch (ConflitoLivroException e) {
+            return false;
+        }
+    }
+
+    public boolean devolverLivros(Collection<Long> ids) {
+        try (UnidadeDeTrabalho unidade = UnidadeDeTrabalho.sobre(mapper)) {
+            unidade.carregar(ids);
+            for (Long id : ids) {
+                unidade.buscar(id).ifPresent(Livro::devolver);
+            }
+            unidade.concluir();
+            return true;
+        } catch (ConflitoLivroException e) {
+            return false;
+        }
     }
 
-    public void devolverLivro(Long id) {
-        mapper.findById(id).ifPresent(livro -> {
-            livro.devolver();
-            mapper.update(livro);
-        });
+    // Para fluxos próprios: o chamador usa buscar(), altera os livros e chama concluir()
+    public UnidadeDeTrabalho iniciarUnidadeDeTrabalho() {
+        return UnidadeDeTrabalho.sobre(mapper);
     }
 
     public List<Livro> listarLivros() {
@@ -1,34 +1,119 @@
 package infra.service.Repository;
 
+import domain.DataMapper.ConflitoLivroException;
 import domain.DataMapper.Livro;
+import domain.DataMapper.LivroDuplicadoException;
 import domain.repository.LivroRepository;
 
+import infra.impl.IndexedLivroRepository;
+import infra.importacao.ImportadorCatalogo;
+import infra.importacao.Isbn;
+import infra.importacao.ProgressoImportacao;
+import infra.uow.UnidadeDeTrabalho;
+
+import java.nio.file.Path;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 public class BibliotecaService {
     private final LivroRepository repository;
+    private final ImportadorCatalogo importador;
+    private final IndexedLivroRepository indice; // null se não houver índice em memória
 
     public BibliotecaService(LivroRepository repository) {
-        this.repository = repository;
+        this(repository, null);
     }
 
-    public void adicionarLivro(String titulo, String autor, String isbn) {
-        Livro livro = new Livro(null, titulo, autor, isbn, true);
-        repository.salvar(livro);
+    public BibliotecaService(LivroRepository repository, ImportadorCatalogo importador) {
+        this(repository, importador, repository instanceof IndexedLivroRepository indexado ? indexado : null);
     }
 
-    public void emprestarLivro(Long id) {
-        repository.buscarPorId(id).ifPresent(livro -> {
-            livro.emprestar();
-            repository.salvar(livro); // re-sincroniza o agregado
-        });
+    // indice: o IndexedLivroRepository dentro da cadeia de decorators, se não for o próprio repository
+    public BibliotecaService(LivroRepository repository, ImportadorCatalogo importador, IndexedLivroRepository indice) {
+        this.repository = repository;
+        this.importador = importador;
+        this.indice = indice;
     }
 
-    public void devolverLivro(Long id) {
-        repository.buscarPorId(id).ifPresent(livro -> {
-            livro.devolver();
+    /*
+     * ISBN gravado na forma canônica (como na importação); false se já houver livro com ele.
+     * A consulta prévia evita o INSERT no caso comum; quem garante a unicidade é o índice
+     * único em livros.isbn: de dois cadastros simultâneos do mesmo ISBN, só um é gravado.
+     */
+    public boolean adicionarLivro(String titulo, String autor, String isbn) {
+        if (repository.buscarPorIsbn(isbn).isPresent()) {
+            return false;
+        }
+        Livro livro = new Livro(null, titulo, autor, Isbn.chave(isbn), true);
+        try {
             repository.salvar(livro);
-        });
+        } catch (LivroDuplicadoException e) {
+            return false;
+        }
+        return true;
+    }
+
+    public Optional<Livro> buscarPorIsbn(String isbn) {
+        return repository.buscarPorIsbn(isbn);
+    }
+
+    // Um UPDATE condicional: false se o livro já estava emprestado (ou não existe)
+    public boolean emprestarLivro(Long id) {
+        return repository.emprestarSeDisponivel(id);
+    }
+
+    public boolean devolverLivro(Long id) {
+        return repository.devolverSeEmprestado(id);
+    }
+
+    // Carrinho inteiro numa unidade de trabalho: 1 SELECT ... IN e 1 batch de UPDATE condicional.
+    // false se algum livro já estava emprestado ou foi alterado por outro balcão: nada é gravado.
+    public boolean emprestarLivros(Collection<Long> ids) {
+        try (UnidadeDeTrabalho unidade = UnidadeDeTrabalho.sobre(repository)) {
+            unidade.carregar(ids);
+            for (Long id : ids) {
+                Optional<Livro> livro = unidade.buscar(id);
+                if (livro.isPresent() && !livro.get().isDisponivel()) {
+                    return false;
+                }
+                livro.ifPresent(Livro::emprestar);
+            }
+            unidade.concluir();
+            return true;
+        } catch (ConflitoLivroException e) {
+            return false;
+        }
+    }
+
+    public boolean devolverLivros(Collection<Long> ids) {
+        try (UnidadeDeTrabalho unidade = UnidadeDeTrabalho.sobre(repository)) {
+            unidade.carregar(ids);
+            for (Long id : ids) {
+                unidade.buscar(id).ifPresent(Livro::devolver);
+            }
+            unidade.concluir();
+            return true;
+        } catch (ConflitoLivroException e) {
+            return false;
+        }
+    }
+
+    // Para fluxos próprios: o chamador usa buscar(), altera os livros e chama concluir()
+    public UnidadeDeTrabalho iniciarUnidadeDeTrabalho() {
+        return UnidadeDeTrabalho.sobre(repository);
+    }
+
+    // Carga em lote de CSV/TSV direto na tabela; com índice em memória, ele é recarregado no fim
+    public ProgressoImportacao importarCatalogo(Path arquivo, Consumer<ProgressoImportacao> progresso) {
+        if (importador == null) {
+            throw new IllegalStateException("Serviço criado sem importador de catálogo");
+        }
+        if (indice == null) {
+            return importador.importar(arquivo, progresso);
+        }
+        return indice.recarregarApos(() -> importador.importar(arquivo, progresso));
     }
 
     public List<Livro> listarLivrosDisponiveis() {
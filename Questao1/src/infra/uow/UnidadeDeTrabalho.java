@@ -0,0 +1,126 @@
+package infra.uow;
+
+import domain.DataMapper.AlteracaoLivro;
+import domain.DataMapper.Livro;
+import domain.repository.LivroRepository;
+import infra.LivroMapper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Unit of Work com Identity Map para livros, usado por um único fluxo (não é thread-safe).
+ *
+ * Cada livro é carregado no máximo uma vez por unidade: buscar o mesmo id devolve a mesma
+ * instância. Ao carregar, guarda-se uma fotografia do estado; concluir() compara e grava só
+ * os livros alterados, num único batch e numa única transação. O UPDATE leva a fotografia no
+ * WHERE: se outra transação mudou algum desses livros depois da leitura (outro balcão
+ * emprestou o mesmo exemplar, alguém editou o título), nada é gravado e concluir() lança
+ * ConflitoLivroException. Fechar sem concluir descarta as alterações. Um carrinho de 40
+ * devoluções vira 1 SELECT ... IN e 1 batch de UPDATE.
+ */
+public class UnidadeDeTrabalho implements AutoCloseable {
+    private final Function<Collection<Long>, List<Livro>> carregarPorIds;
+    private final Consumer<Collection<AlteracaoLivro>> gravarAlterados;
+
+    private final Map<Long, Livro> identidades = new LinkedHashMap<>();
+    private final Map<Long, Estado> originais = new HashMap<>();
+    private final Set<Long> consultados = new HashSet<>(); // inclui ids que não existem no banco
+    private boolean encerrada;
+
+    private record Estado(String titulo, String autor, String isbn, boolean disponivel) {
+        static Estado de(Livro livro) {
+            return new Estado(livro.getTitulo(), livro.getAutor(), livro.getIsbn(), livro.isDisponivel());
+        }
+
+        Livro comoLivro(Long id) {
+            return new Livro(id, titulo, autor, isbn, disponivel);
+        }
+    }
+
+    public UnidadeDeTrabalho(Function<Collection<Long>, List<Livro>> carregarPorIds,
+                             Consumer<Collection<AlteracaoLivro>> gravarAlterados) {
+        this.carregarPorIds = carregarPorIds;
+        this.gravarAlterados = gravarAlterados;
+    }
+
+    public static UnidadeDeTrabalho sobre(LivroRepository repository) {
+        return new UnidadeDeTrabalho(repository::buscarPorIds, repository::atualizarSeInalterados);
+    }
+
+    public static UnidadeDeTrabalho sobre(LivroMapper mapper) {
+        return new UnidadeDeTrabalho(mapper::findByIds, mapper::updateAllIfUnchanged);
+    }
+
+    // Carrega de uma vez (uma consulta IN) os ids ainda não consultados nesta unidade
+    public void carregar(Collection<Long> ids) {
+        verificarAberta();
+        List<Long> faltantes = new ArrayList<>();
+        for (Long id : ids) {
+            if (consultados.add(id)) {
+                faltantes.add(id);
+            }
+        }
+        if (faltantes.isEmpty()) {
+            return;
+        }
+        for (Livro livro : carregarPorIds.apply(faltantes)) {
+            identidades.putIfAbsent(livro.getId(), livro);
+            originais.putIfAbsent(livro.getId(), Estado.de(livro));
+        }
+    }
+
+    public Optional<Livro> buscar(Long id) {
+        verificarAberta();
+        carregar(List.of(id));
+        return Optional.ofNullable(identidades.get(id));
+    }
+
+    // Livros cujo estado difere do carregado, na ordem em que foram carregados
+    public List<Livro> alterados() {
+        List<Livro> alterados = new ArrayList<>();
+        for (Map.Entry<Long, Livro> e : identidades.entrySet()) {
+            if (!Estado.de(e.getValue()).equals(originais.get(e.getKey()))) {
+                alterados.add(e.getValue());
+            }
+        }
+        return alterados;
+    }
+
+    // Grava os alterados num só batch/transação e encerra a unidade (mesmo se houver conflito)
+    public void concluir() {
+        verificarAberta();
+        encerrada = true;
+        List<AlteracaoLivro> alteracoes = new ArrayList<>();
+        for (Livro livro : alterados()) {
+            alteracoes.add(new AlteracaoLivro(originais.get(livro.getId()).comoLivro(livro.getId()), livro));
+        }
+        if (!alteracoes.isEmpty()) {
+            gravarAlterados.accept(alteracoes);
+        }
+    }
+
+    // Sem concluir(), as alterações são descartadas (nada foi enviado ao banco)
+    @Override
+    public void close() {
+        encerrada = true;
+        identidades.clear();
+        originais.clear();
+        consultados.clear();
+    }
+
+    private void verificarAberta() {
+        if (encerrada) {
+            throw new IllegalStateException("Unidade de trabalho já encerrada");
+        }
+    }
+}